@@ -0,0 +1,495 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A DeQueue that keeps its elements in one array, used as a ring: the front can
+ * be anywhere in the array, and the elements wrap around the end of it back to
+ * the start.  Adding or removing at either end is just moving the front or the
+ * back along one, and getting at any index is a bit of arithmetic, where a linked
+ * list would have to walk there.  Nothing gets allocated unless the array fills
+ * up, in which case it doubles.
+ * <p>
+ * It can go anywhere a DeQueue can, and does everything a DeQueue does, fake queue
+ * and all: so the queues=array option can swap them in for the warehouses' queues
+ * without anyone noticing, except for how fast it goes.  Adding or removing in
+ * the middle still moves everything along, so that's no faster than walking a
+ * linked list there; but queues don't do that much.
+ * <p>
+ * Like the linked kind, cloning a locked one is O(1): the clone shares the array,
+ * and popping off either end just moves its own front or count along.  Anything
+ * else that changes it gets it an array of its own first.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class ArrayDeQueue<E> extends DeQueue<E>
+{
+    // the array is never smaller than this, so we don't double our way up from one
+    private static final int minCapacity = 8;
+    
+    private Object[] elements;
+    // where the front of the queue is in the array
+    private int front = 0;
+    private int count = 0;
+    // the index of the next fakePop(), or -1 if it has run off the end
+    private int cursor = -1;
+    // whether the array belongs to some locked queue: if so, we mustn't change it
+    private boolean shared = false;
+    
+    public ArrayDeQueue(){
+        elements = new Object[minCapacity];
+    }
+    
+    /**
+     * Makes a queue with room for the given number of elements, before it has to grow
+     */
+    public ArrayDeQueue(int capacity){
+        elements = new Object[Math.max(minCapacity, capacity)];
+    }
+    
+    /**
+     * Makes a queue that shares another's array, for clone()
+     */
+    private ArrayDeQueue(Object[] elements, int front, int count){
+        this.elements = elements;
+        this.front = front;
+        this.count = count;
+        shared = count != 0;
+    }
+    
+    /**
+     * Turns an index into the queue into an index into the array
+     */
+    private int slot(int index){
+        int slot = front + index;
+        return slot < elements.length ? slot : slot - elements.length;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private E elementAt(int index){
+        return (E) elements[slot(index)];
+    }
+    
+    private void checkIndex(int index, int limit){
+        if(index >= limit || index < 0){
+            throw new IndexOutOfBoundsException(
+                String.format("Index %d out of bounds for list length %d", index, count));
+        }
+    }
+    
+    private void checkUnlocked(){
+        if(isLocked()){
+            throw new IllegalStateException("This list has been locked: modifications are impossible");
+        }
+    }
+    
+    /**
+     * Doubles the array, straightening the ring out on the way
+     */
+    private void grow(){
+        Object[] bigger = new Object[elements.length * 2];
+        copyInto(bigger);
+        elements = bigger;
+        front = 0;
+    }
+    
+    /**
+     * Trades the array we're sharing for a copy of our own, so we can change it
+     */
+    private void unshare(){
+        Object[] mine = new Object[elements.length];
+        copyInto(mine);
+        elements = mine;
+        front = 0;
+        shared = false;
+    }
+    
+    /**
+     * Copies the elements into the start of the given array, in order
+     */
+    private void copyInto(Object[] destination){
+        int firstPart = Math.min(count, elements.length - front);
+        System.arraycopy(elements, front, destination, 0, firstPart);
+        System.arraycopy(elements, 0, destination, firstPart, count - firstPart);
+    }
+    
+    @Override
+    public E get(int index){
+        checkIndex(index, count);
+        return elementAt(index);
+    }
+    
+    @Override
+    public void remove(int index){
+        checkUnlocked();
+        checkIndex(index, count);
+        if(shared && (index == 0 || index == count - 1)){
+            // the ends of a shared array can be dropped just by narrowing our window
+            if(index == 0){
+                front = slot(1);
+            }
+        }
+        else if(index < count / 2){
+            if(shared){
+                unshare();
+            }
+            // close the gap from the front, which has less to move
+            for(int i = index; i > 0; i--){
+                elements[slot(i)] = elements[slot(i - 1)];
+            }
+            elements[front] = null;
+            front = slot(1);
+        }
+        else{
+            if(shared){
+                unshare();
+            }
+            for(int i = index; i < count - 1; i++){
+                elements[slot(i)] = elements[slot(i + 1)];
+            }
+            elements[slot(count - 1)] = null;
+        }
+        count--;
+        
+        // keep the fake queue on the same element, just like the linked list
+        // does: or on the one after, if it was this one
+        if(cursor > index){
+            cursor--;
+        }
+        else if(cursor == index && cursor == count){
+            cursor = -1;
+        }
+    }
+    
+    @Override
+    public void add(E data){
+        add(count, data);
+    }
+    
+    @Override
+    public void add(int index, E data){
+        checkUnlocked();
+        checkIndex(index, count + 1);
+        if(shared){
+            unshare();
+        }
+        if(count == elements.length){
+            grow();
+        }
+        // make room from whichever side has less to move
+        if(index < count / 2){
+            front = front == 0 ? elements.length - 1 : front - 1;
+            for(int i = 0; i < index; i++){
+                elements[slot(i)] = elements[slot(i + 1)];
+            }
+        }
+        else{
+            for(int i = count; i > index; i--){
+                elements[slot(i)] = elements[slot(i - 1)];
+            }
+        }
+        elements[slot(index)] = data;
+        count++;
+        
+        if(count == 1){
+            // the first element in an empty list is where the fake queue starts
+            cursor = 0;
+        }
+        else if(cursor >= index){
+            cursor++;
+        }
+    }
+    
+    @Override
+    public E popFront(){
+        checkIndex(0, count);
+        E retval = elementAt(0);
+        remove(0);
+        return retval;
+    }
+    
+    @Override
+    public E peekFront(){
+        return get(0);
+    }
+    
+    @Override
+    public E popBack(){
+        checkIndex(count - 1, count);
+        E retval = elementAt(count - 1);
+        remove(count - 1);
+        return retval;
+    }
+    
+    @Override
+    public E peekBack(){
+        return get(count - 1);
+    }
+    
+    @Override
+    public int size(){
+        return count;
+    }
+    
+    @Override
+    public boolean isEmpty(){
+        return count == 0;
+    }
+    
+    @Override
+    public E fakePop(){
+        if(cursor == -1){
+            throw new IndexOutOfBoundsException("fake pop went too far this time!");
+        }
+        E retval = elementAt(cursor);
+        cursor++;
+        if(cursor == count){
+            cursor = -1;
+        }
+        return retval;
+    }
+    
+    @Override
+    public void resetFakeQueue(){
+        cursor = count == 0 ? -1 : 0;
+    }
+    
+    @Override
+    public <G> DoublyLinkedList<G> applyFunctionToList(Function<E,G> function){
+        DoublyLinkedList<G> results = new DoublyLinkedList<G>();
+        for(int i = 0; i < count; i++){
+            results.add(function.apply(elementAt(i)));
+        }
+        return results;
+    }
+    
+    @Override
+    public void forEach(Consumer<? super E> action){
+        for(int i = 0; i < count; i++){
+            action.accept(elementAt(i));
+        }
+    }
+    
+    @Override
+    public double foldDouble(double initial, DoubleFolder<? super E> folder){
+        double total = initial;
+        for(int i = 0; i < count; i++){
+            total = folder.fold(total, elementAt(i));
+        }
+        return total;
+    }
+    
+    @Override
+    public long foldLong(long initial, LongFolder<? super E> folder){
+        long total = initial;
+        for(int i = 0; i < count; i++){
+            total = folder.fold(total, elementAt(i));
+        }
+        return total;
+    }
+    
+    @Override
+    public <G> G[] mapInto(G[] destination, Function<? super E, ? extends G> function){
+        if(destination.length < count){
+            throw new IndexOutOfBoundsException(
+                String.format("An array of %d can't hold the results for a list of %d", destination.length, count));
+        }
+        for(int i = 0; i < count; i++){
+            destination[i] = function.apply(elementAt(i));
+        }
+        return destination;
+    }
+    
+    @Override
+    public double[] mapToDoubles(double[] destination, ToDoubleFunction<? super E> function){
+        if(destination.length < count){
+            throw new IndexOutOfBoundsException(
+                String.format("An array of %d can't hold the results for a list of %d", destination.length, count));
+        }
+        for(int i = 0; i < count; i++){
+            destination[i] = function.applyAsDouble(elementAt(i));
+        }
+        return destination;
+    }
+    
+    @Override
+    public E argMin(ToDoubleFunction<? super E> key){
+        double least = Double.POSITIVE_INFINITY;
+        E retval = null;
+        for(int i = 0; i < count; i++){
+            E element = elementAt(i);
+            double value = key.applyAsDouble(element);
+            if(value < least){
+                least = value;
+                retval = element;
+            }
+        }
+        return retval;
+    }
+    
+    @Override
+    public Iterator<E> iterator(){
+        return new Iterator<E>(){
+            private int next = 0;
+            
+            @Override
+            public boolean hasNext(){
+                return next < count;
+            }
+            
+            @Override
+            public E next(){
+                if(next >= count){
+                    throw new NoSuchElementException("The list has no more elements");
+                }
+                return elementAt(next++);
+            }
+        };
+    }
+    
+    /**
+     * Gets a spliterator over this queue.  Splitting it is just picking the
+     * index in the middle: there's no walking to be done.
+     */
+    @Override
+    public Spliterator<E> spliterator(){
+        return new RingSpliterator(0, count);
+    }
+    
+    @Override
+    public String toString(){
+        StringBuilder retval = new StringBuilder();
+        for(int i = 0; i < count; i++){
+            retval.append(elementAt(i).toString());
+            retval.append(", ");
+        }
+        return retval.toString();
+    }
+    
+    @Override
+    public void clear(){
+        // let go of everything, so the garbage collector can have it: unless
+        // clones might be sharing it, in which case it's the array we let go of
+        if(shared || isLocked()){
+            elements = new Object[minCapacity];
+            shared = false;
+        }
+        else{
+            for(int i = 0; i < count; i++){
+                elements[slot(i)] = null;
+            }
+        }
+        front = 0;
+        count = 0;
+        cursor = -1;
+    }
+    
+    /**
+     * Appends another list onto the end of this one.  Unlike the linked list,
+     * this copies the other list's elements in, so the other list can be empty.
+     */
+    @Override
+    public void append(DoublyLinkedList<E> other){
+        other.forEach(this::add);
+    }
+    
+    /**
+     * We keep everything in our array: the nodes we'd inherit are never used
+     */
+    @Override
+    protected boolean keepsNodes(){
+        return false;
+    }
+    
+    /**
+     * The linked list's cloneInto() would copy our (nonexistent) nodes, and give
+     * an empty list: so this one copies our elements over instead.  Our own
+     * clone() doesn't need it, but a subclass's might.
+     */
+    @Override
+    protected void cloneInto(DoublyLinkedList<E> retval){
+        forEach(retval::add);
+        retval.resetFakeQueue();
+    }
+    
+    /**
+     * Clones the queue: a shallow copy, which isn't locked, with the fake queue
+     * at the start.  Cloning a locked queue (or a clone that's still sharing
+     * one's array) is O(1): the clone shares the array, until it needs to change it.
+     */
+    @Override
+    public ArrayDeQueue<E> clone(){
+        ArrayDeQueue<E> retval;
+        if(isLocked() || shared){
+            retval = new ArrayDeQueue<E>(elements, front, count);
+        }
+        else{
+            retval = new ArrayDeQueue<E>(count);
+            copyInto(retval.elements);
+            retval.count = count;
+        }
+        retval.resetFakeQueue();
+        return retval;
+    }
+    
+    /**
+     * Covers a range of indexes in the queue
+     */
+    private class RingSpliterator implements Spliterator<E>
+    {
+        private int next;
+        private final int end;
+        
+        RingSpliterator(int start, int end){
+            next = start;
+            this.end = end;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action){
+            if(next >= end){
+                return false;
+            }
+            action.accept(elementAt(next++));
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(Consumer<? super E> action){
+            int start = next;
+            next = end;
+            for(int i = start; i < end; i++){
+                action.accept(elementAt(i));
+            }
+        }
+        
+        @Override
+        public Spliterator<E> trySplit(){
+            if(end - next < 2){
+                return null;
+            }
+            int middle = next + (end - next) / 2;
+            RingSpliterator front = new RingSpliterator(next, middle);
+            next = middle;
+            return front;
+        }
+        
+        @Override
+        public long estimateSize(){
+            return end - next;
+        }
+        
+        @Override
+        public int characteristics(){
+            int traits = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+            if(isLocked()){
+                traits |= Spliterator.IMMUTABLE;
+            }
+            return traits;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * This tests the ArrayDeQueue class.  It has to pass every test a DoublyLinkedList
+ * does, so it gets them all by filling the test arrays with ArrayDeQueues instead:
+ * and then some more, for the things only a ring can get wrong.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class ArrayDeQueueTest extends DoublyLinkedListTest
+{
+    @Override
+    public void createArrays(){
+        super.createArrays();
+        emptyArray = new ArrayDeQueue<Integer>();
+        increasingToNineArray = new ArrayDeQueue<Integer>();
+        increasingToTwentyArray = new ArrayDeQueue<Integer>();
+        halfEmptiedArray = new ArrayDeQueue<Integer>();
+        decreasingFromTwentyArray = new ArrayDeQueue<Integer>();
+    }
+    
+    /**
+     * Test that the queue keeps working as the front goes round and round the array
+     */
+    @Test
+    public void testWrappingAround(){
+        ArrayDeQueue<Integer> queue = new ArrayDeQueue<Integer>();
+        int nextIn = 0;
+        int nextOut = 0;
+        for(int round = 0; round < 100; round++){
+            // a few more in than out, so it has to grow while it's wrapped
+            for(int i = 0; i < 5; i++){
+                queue.add(nextIn++);
+            }
+            for(int i = 0; i < 4; i++){
+                assertEquals(nextOut++, queue.popFront());
+            }
+            assertEquals(nextOut, queue.peekFront());
+            assertEquals(nextIn - 1, queue.peekBack());
+            assertEquals(nextIn - nextOut, queue.size());
+        }
+        for(int i = 0; i < queue.size(); i++){
+            assertEquals(nextOut + i, queue.get(i));
+        }
+        // and from the other end
+        queue.add(0, -1);
+        assertEquals(-1, queue.peekFront());
+        assertEquals(nextIn - 1, queue.popBack());
+    }
+    
+    /**
+     * Test that it behaves just like a linked DeQueue, fake queue and all, whatever
+     * gets done to them both
+     */
+    @Test
+    public void testMatchesLinkedQueue(){
+        Random rand = new Random(42);
+        DeQueue<Integer> linked = new DeQueue<Integer>();
+        ArrayDeQueue<Integer> ring = new ArrayDeQueue<Integer>();
+        for(int step = 0; step < 5000; step++){
+            int choice = rand.nextInt(10);
+            if(choice < 4 || linked.isEmpty()){
+                int index = rand.nextInt(linked.size() + 1);
+                linked.add(index, step);
+                ring.add(index, step);
+            }
+            else if(choice < 6){
+                int index = rand.nextInt(linked.size());
+                linked.remove(index);
+                ring.remove(index);
+            }
+            else if(choice < 7){
+                assertEquals(linked.popFront(), ring.popFront());
+            }
+            else if(choice < 8){
+                assertEquals(linked.popBack(), ring.popBack());
+            }
+            else if(choice < 9){
+                linked.resetFakeQueue();
+                ring.resetFakeQueue();
+            }
+            else{
+                // both run off the end at the same time, or neither does
+                try{
+                    Integer expected = linked.fakePop();
+                    assertEquals(expected, ring.fakePop());
+                }
+                catch(IndexOutOfBoundsException e){
+                    assertThrows(IndexOutOfBoundsException.class, ()->ring.fakePop());
+                }
+            }
+            assertEquals(linked.size(), ring.size());
+            assertEquals(linked.toString(), ring.toString());
+        }
+    }
+    
+    /**
+     * Test that clones are ArrayDeQueues too, and that locking works the same way
+     */
+    @Test
+    public void testCloneAndLock(){
+        ArrayDeQueue<Integer> queue = new ArrayDeQueue<Integer>();
+        for(int i = 0; i < 20; i++){
+            queue.add(i);
+            queue.popFront();
+            queue.add(i);
+        }
+        queue.lock();
+        assertThrows(IllegalStateException.class, ()->queue.add(5));
+        assertThrows(IllegalStateException.class, ()->queue.popFront());
+        assertThrows(IllegalStateException.class, ()->queue.remove(0));
+        
+        ArrayDeQueue<Integer> copy = queue.clone();
+        assertFalse(copy.isLocked());
+        assertEquals(queue.toString(), copy.toString());
+        assertEquals(queue.peekFront(), copy.popFront());
+        assertEquals(20, queue.size());
+        assertEquals(19, copy.size());
+        
+        // and it can be appended onto a linked list, and the other way round
+        DoublyLinkedList<Integer> linked = new DoublyLinkedList<Integer>();
+        linked.append(queue);
+        assertEquals(queue.toString(), linked.toString());
+        copy.append(linked);
+        assertEquals(39, copy.size());
+        
+        // a subclass cloning itself into some other kind of list still gets everything
+        DeQueue<Integer> into = new DeQueue<Integer>();
+        queue.cloneInto(into);
+        assertEquals(queue.toString(), into.toString());
+        assertEquals(queue.peekFront(), into.fakePop());
+    }
+    
+    /**
+     * Test that a truck (and its router) take an ArrayDeQueue for a manifest
+     */
+    @Test
+    public void testAsManifest(){
+        ArrayDeQueue<ShipmentOrder> manifest = new ArrayDeQueue<ShipmentOrder>();
+        Warehouse start = new Warehouse(new Point(0, 0), 1, 0, true);
+        Warehouse end = new Warehouse(new Point(10, 0), 1, 1, true);
+        manifest.add(new ShipmentOrder(start, end));
+        Truck truck = new SmallTruck(manifest, BetterRouter.class, new Point(5, 5));
+        assertTrue(manifest.isLocked());
+        truck = new SmallTruck(manifest, BadRouter.class, new Point(5, 5));
+        assertNotNull(truck.status());
+    }
+}
@@ -9,12 +9,21 @@ public class BadRouter extends Router
 {
     DeQueue<ShipmentOrder> manifest;
     ShipmentOrder[] currentCargo;
+    // when working from a compact manifest, we just count our way through it
+    Manifest compactManifest;
+    int nextOrder = 0;
     public BadRouter(DeQueue<ShipmentOrder> orders, ShipmentOrder[] hold){
         // clone manifest, to allow us to use the queue's popping methods
         manifest = orders.clone();
         currentCargo = hold;
     }
     
+    public BadRouter(Manifest orders, ShipmentOrder[] hold){
+        // no clone needed: the manifest can't change
+        compactManifest = orders;
+        currentCargo = hold;
+    }
+    
     public ShipmentOrder getNextOrder(Point cur){
         // even bothering to track this is very silly: in fact, it probably
         // adds more time then it will register, if it even registers any.
@@ -25,6 +34,14 @@ public class BadRouter extends Router
         if(currentCargo[0] != null){
             retval = currentCargo[0];
         }
+        else if(compactManifest != null){
+            if(nextOrder == compactManifest.size()){
+                retval = null;
+            }
+            else{
+                retval = compactManifest.get(nextOrder++);
+            }
+        }
         // we should return null when we're done
         else if(manifest.size() == 0){
             retval = null;
@@ -35,4 +52,12 @@ public class BadRouter extends Router
         increaseExecutionTime(System.nanoTime() - startTime);
         return retval;
     }
+    
+    /**
+     * The point is ignored anyways: so there's no need to make one
+     */
+    @Override
+    public ShipmentOrder getNextOrder(double x, double y){
+        return getNextOrder(null);
+    }
 }
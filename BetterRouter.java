@@ -1,3 +1,5 @@
+import java.util.function.ToDoubleFunction;
+
 /**
  * This is a 'better' router: it will go to the closest order in the
  * manifest or cargo hold that it can, unless it's cargo is full:
@@ -9,7 +11,11 @@
 public class BetterRouter extends Router
 {
     private DeQueue<ShipmentOrder> manifest;
+    private Manifest compactManifest;
     private ShipmentOrder[] currentCargo;
+    // the key argMin() ranks the manifest by: it's pointed at wherever we are before
+    // each use, so routing doesn't make a new lambda every time (see getClosestOrder())
+    private final DistanceFrom distanceFromHere = new DistanceFrom();
     public BetterRouter(DeQueue<ShipmentOrder> orders, ShipmentOrder[] hold){
         // clone manifest, to allow us to use the queue's popping methods
         manifest = orders.clone();
@@ -17,9 +23,23 @@ public class BetterRouter extends Router
         currentCargo = hold;
     }
     
+    public BetterRouter(Manifest orders, ShipmentOrder[] hold){
+        // we never change the manifest, so there's no need to copy it
+        compactManifest = orders;
+        currentCargo = hold;
+    }
+    
     public ShipmentOrder getNextOrder(Point currentLocation){
+        return getNextOrder(currentLocation.xPos, currentLocation.yPos);
+    }
+    
+    /**
+     * Does the real work of getNextOrder(), straight from the truck's coordinates:
+     * so routing doesn't need a Point made for it
+     */
+    @Override
+    public ShipmentOrder getNextOrder(double x, double y){
         long startTime = System.nanoTime();
-        var closestCandidates = new DeQueue<ShipmentOrder>();
         
         // determine if we have a full cargo hold
         boolean fullCargo = true;
@@ -31,52 +51,101 @@ public class BetterRouter extends Router
         }
         
         // if the currentCargo is full, select from it
+        ShipmentOrder retval;
         if(fullCargo){
-            for(ShipmentOrder i : currentCargo){
-                closestCandidates.add(i);
-            }
+            retval = getClosestOrder(currentCargo, x, y);
+        }
+        else if(compactManifest != null){
+            retval = getClosestOrder(compactManifest, x, y);
         }
         else{
-            closestCandidates = manifest;
+            retval = getClosestOrder(manifest, x, y);
         }
-        ShipmentOrder retval = getClosestOrder(closestCandidates, currentLocation);
         increaseExecutionTime(System.nanoTime()-startTime);
         return retval;
     }
     
     /**
-     * Gets the order closest to the given point, considering whatever
+     * Gets the order closest to the given coordinates, considering whatever
      * part of the order must be accomplished next.
      * Will never return a completed order.  Returns null if
      * all orders are completed.
      */
-    public ShipmentOrder getClosestOrder(DeQueue<ShipmentOrder> candidates, Point currentSpot){
-        DoublyLinkedList<Double> distances = candidates.applyFunctionToList(
-            (ShipmentOrder s) -> { 
-                if(s.getStatus() == ShipmentState.DROPPED_OFF){
-                    return -1.0;
-                }
-                return s.getTargetWarehouse().location.calculateDistance(currentSpot);
-            });
-        
-        // iterate through: we can't just start from the first and find the least,
-        // since there might not be any valid answer
+    public ShipmentOrder getClosestOrder(DeQueue<ShipmentOrder> candidates, double x, double y){
+        // completed orders are ruled out by being infinitely far away
+        distanceFromHere.x = x;
+        distanceFromHere.y = y;
+        return candidates.argMin(distanceFromHere);
+    }
+    
+    /**
+     * Just like the other getClosestOrder(), but for the cargo hold: which is
+     * already an array, so there's no need to put it in a list first
+     */
+    public ShipmentOrder getClosestOrder(ShipmentOrder[] candidates, double x, double y){
         double leastDistance = Double.POSITIVE_INFINITY;
         ShipmentOrder closest = null;
-        // reset the fake pointers before iteration
-        candidates.resetFakeQueue();
-        for(int i = 0; i < candidates.size(); i++){
-            double curDist = distances.fakePop();
-            // make sure this is a valid value, and is smaller
-            if(curDist < leastDistance && curDist != -1){
-                closest = candidates.fakePop();
+        for(ShipmentOrder s : candidates){
+            double curDist = distanceTo(s, x, y);
+            if(curDist < leastDistance){
+                closest = s;
                 leastDistance = curDist;
             }
-            else{
-                // advance the pointer
-                candidates.fakePop();
-            }
         }
         return closest;
     }
+    
+    /**
+     * Gets how far it is to wherever an order needs to go next: or infinity,
+     * if it has already been dropped off
+     */
+    private static double distanceTo(ShipmentOrder s, double x, double y){
+        if(s.getStatus() == ShipmentState.DROPPED_OFF){
+            return Double.POSITIVE_INFINITY;
+        }
+        Point target = s.getTargetWarehouse().location;
+        return Point.distance(target.xPos, target.yPos, x, y);
+    }
+    
+    /**
+     * Just like the other getClosestOrder(), but for a compact manifest.  This
+     * goes straight to the table, so no ShipmentOrders get made for the orders
+     * that aren't picked.
+     */
+    public ShipmentOrder getClosestOrder(Manifest candidates, double x, double y){
+        OrderTable table = candidates.orders;
+        double leastDistance = Double.POSITIVE_INFINITY;
+        int closest = -1;
+        for(int i = 0; i < candidates.size(); i++){
+            int id = candidates.orderId(i);
+            if(table.getStatus(id) == ShipmentState.DROPPED_OFF){
+                continue;
+            }
+            Point target = table.getTargetWarehouse(id).location;
+            double curDist = Point.distance(target.xPos, target.yPos, x, y);
+            if(curDist < leastDistance){
+                closest = id;
+                leastDistance = curDist;
+            }
+        }
+        if(closest == -1){
+            return null;
+        }
+        return table.get(closest);
+    }
+    
+    /**
+     * How far an order is from wherever it was last pointed at.  A router only
+     * ever routes one truck, so there's no need for more than one of these each.
+     */
+    private static class DistanceFrom implements ToDoubleFunction<ShipmentOrder>
+    {
+        private double x;
+        private double y;
+        
+        @Override
+        public double applyAsDouble(ShipmentOrder s){
+            return distanceTo(s, x, y);
+        }
+    }
 }
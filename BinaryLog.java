@@ -0,0 +1,71 @@
+
+/**
+ * The layout of the binary run logs, which the log=binary option writes
+ * instead of text.  These hold exactly the same information as the text logs,
+ * and the LogDecoder can turn them back into exactly the same text, but they
+ * are a fraction of the size and take a fraction of the time to write: there
+ * are no strings to build, and no coordinates to format.
+ * <p>
+ * Every number is written big-end first (as a DataOutputStream would).  A log
+ * starts with a header:
+ * <ul>
+ * <li>the magic number, then the format version</li>
+ * <li>the number of warehouses, then each one's coordinates (as two ints, in
+ * hundredths: see Point.toHundredths()) and dock count</li>
+ * <li>the number of trucks, then each one's cargo capacity</li>
+ * </ul>
+ * That's followed by records, each starting with a byte saying what it is:
+ * <ul>
+ * <li>TICK: one tick of the Executer.  The tick number, then every warehouse's
+ * entry (see Warehouse.encodeStatus()), then every truck's entry (see
+ * Truck.encodeStatus()), in order.</li>
+ * <li>EVENT_TICK: one tick of the EventExecuter.  The tick number, then a
+ * series of WAREHOUSE and TRUCK items (each of those is the tag, the index
+ * and the entry), ending with END.</li>
+ * <li>SKIP: some ticks skipped over by fast-forwarding.  The first and last
+ * ticks skipped, then the number of trucks on the road.</li>
+ * </ul>
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class BinaryLog
+{
+    /**
+     * The first four bytes of every binary log: "TLOG", in ASCII
+     */
+    public static final int MAGIC = 0x544C4F47;
+    public static final byte VERSION = 1;
+    
+    // the kinds of records
+    public static final byte TICK = 'T';
+    public static final byte EVENT_TICK = 'E';
+    public static final byte SKIP = 'S';
+    
+    // the kinds of items in an EVENT_TICK
+    public static final byte WAREHOUSE = 'w';
+    public static final byte TRUCK = 't';
+    public static final byte END = 'e';
+    
+    /**
+     * Writes the header of a binary log
+     *
+     * @param out where to write it
+     * @param warehouses every warehouse of the run, in order
+     * @param trucks every truck of the run, in order
+     */
+    public static void writeHeader(LogBuffer out, Warehouse[] warehouses, Truck[] trucks){
+        out.putInt(MAGIC);
+        out.putByte(VERSION);
+        out.putInt(warehouses.length);
+        for(Warehouse w : warehouses){
+            out.putInt(Math.toIntExact(Point.toHundredths(w.location.xPos)));
+            out.putInt(Math.toIntExact(Point.toHundredths(w.location.yPos)));
+            out.putByte(w.docks);
+        }
+        out.putInt(trucks.length);
+        for(Truck t : trucks){
+            out.putShort(t.getCapacity());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Makes the primitive arrays that FleetState and OrderTable keep their
+ * data in.  These come in two flavours: on the heap, where they're just
+ * plain arrays wrapped up in a buffer, or off of it, in memory that the
+ * garbage collector doesn't know or care about.
+ * <p>
+ * Off-heap memory is handy once there are tens of millions of things to
+ * keep track of: the collector doesn't have to scan it, and it doesn't
+ * count against the heap size.  It's released once the buffer holding it
+ * is collected.  Either way, everything is reached the same way, through
+ * the buffer's get() and put(): so the classes using these don't need to
+ * care which they got.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class Buffers
+{
+    public static DoubleBuffer doubles(int count, boolean offHeap){
+        if(offHeap){
+            return direct(count * Double.BYTES).asDoubleBuffer();
+        }
+        return DoubleBuffer.wrap(new double[count]);
+    }
+    
+    public static IntBuffer ints(int count, boolean offHeap){
+        if(offHeap){
+            return direct(count * Integer.BYTES).asIntBuffer();
+        }
+        return IntBuffer.wrap(new int[count]);
+    }
+    
+    public static ShortBuffer shorts(int count, boolean offHeap){
+        if(offHeap){
+            return direct(count * Short.BYTES).asShortBuffer();
+        }
+        return ShortBuffer.wrap(new short[count]);
+    }
+    
+    public static ByteBuffer bytes(int count, boolean offHeap){
+        if(offHeap){
+            return direct(count);
+        }
+        return ByteBuffer.wrap(new byte[count]);
+    }
+    
+    /**
+     * Gets some zeroed memory from outside of the heap, in whatever byte order
+     * this machine prefers: that's the quickest to read and write
+     */
+    private static ByteBuffer direct(int bytes){
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+}
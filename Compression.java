@@ -0,0 +1,124 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The ways a run log can be compressed as it's written, picked by the compression
+ * option.  Our logs are mostly the same few words and numbers over and over, so they
+ * shrink a great deal: which is worth it, on a disk that can't keep up with a sweep.
+ * <ul>
+ * <li>none: the log is written just as it is</li>
+ * <li>gzip: the gzip format, which the gzip command can also read</li>
+ * <li>zlib: the zlib format, which is the same as gzip without the header</li>
+ * </ul>
+ * The compression is done by whoever writes to the stream, which for run logs is
+ * the LogWriter's own thread: so it doesn't slow the simulation down.  Reading is
+ * the easy part: decompress() works out which of these a file used from its first
+ * couple of bytes, so nobody reading a log has to know how it was written.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class Compression
+{
+    // the size of the buffers inside the compressing and decompressing streams
+    private static final int bufferSize = 1 << 16;
+    
+    /**
+     * Checks that a compression choice is one we know about, and the level is one
+     * it can do
+     *
+     * @throws IllegalArgumentException if it isn't
+     */
+    public static void check(String codec, int level){
+        suffix(codec);
+        if(level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION){
+            throw new IllegalArgumentException("Compression levels go from 0 to 9, not " + level);
+        }
+    }
+    
+    /**
+     * Gets what goes on the end of a log file's name, to say how it was compressed
+     */
+    public static String suffix(String codec){
+        switch(codec){
+            case "none":
+                return "";
+            case "gzip":
+                return ".gz";
+            case "zlib":
+                return ".zz";
+            default:
+                throw new IllegalArgumentException("No such compression: " + codec);
+        }
+    }
+    
+    /**
+     * Wraps a stream, so that everything written to it gets compressed.  Closing
+     * the wrapper finishes off the compressed data, and closes the stream.
+     *
+     * @param out where the compressed bytes go
+     * @param codec one of "none", "gzip", or "zlib"
+     * @param level how hard to try, from 0 (not at all) to 9 (as hard as possible)
+     */
+    public static OutputStream compress(OutputStream out, String codec, int level) throws IOException{
+        check(codec, level);
+        switch(codec){
+            case "none":
+                return out;
+            case "gzip":
+                // there's no way to hand GZIPOutputStream a level: but its Deflater is protected
+                return new GZIPOutputStream(out, bufferSize){
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            case "zlib":
+                // our own Deflater isn't ended for us when the stream is closed: that
+                // only happens to the default one, so we do it ourselves
+                Deflater deflater = new Deflater(level);
+                return new DeflaterOutputStream(out, deflater, bufferSize){
+                    @Override
+                    public void close() throws IOException{
+                        try{
+                            super.close();
+                        }
+                        finally{
+                            deflater.end();
+                        }
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("No such compression: " + codec);
+        }
+    }
+    
+    /**
+     * Wraps a stream, so that reading from it gives the log as it was before it
+     * was compressed: however that was done.  A stream that wasn't compressed at
+     * all is read just as it is.
+     */
+    public static InputStream decompress(InputStream in) throws IOException{
+        BufferedInputStream buffered = new BufferedInputStream(in, bufferSize);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if(first == 0x1f && second == 0x8b){
+            return new GZIPInputStream(buffered, bufferSize);
+        }
+        // zlib's first byte says it's deflate (8 in the low bits), and the
+        // first two bytes together are a multiple of 31.  None of our logs
+        // start with anything like that.
+        if(first != -1 && second != -1 && (first & 0x0f) == 8 && (first * 256 + second) % 31 == 0){
+            return new InflaterInputStream(buffered);
+        }
+        return buffered;
+    }
+}
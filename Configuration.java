@@ -2,9 +2,6 @@ import java.util.Scanner;
 import java.io.File;
 import java.io.IOError;
 
-// For the static colors we define
-import java.awt.Color;
-
 
 /**
  * Manages the configuration: reading it in from the file, and then
@@ -23,9 +20,46 @@ import java.awt.Color;
  * against the manual creation of Configuration objects.
  * <p>
  * Some data fields are also static.  These fields are not read from the config file,
- * but instead are hard-coded.  They describe, for instance, the various colors and
- * sizes of graphics objects.  They are included here to centralize them, and to
- * avoid 'magic constants' being sprinked throughout various classes and the code.
+ * but instead are hard-coded.  They describe, for instance, the sizes of graphics
+ * objects.  They are included here to centralize them, and to avoid 'magic constants'
+ * being sprinked throughout various classes and the code.  The colors live over in
+ * Render, so that reading a config doesn't drag AWT in with it.
+ * <p>
+ * After the nine numbers, a config file may list any number of options, in the
+ * form key=value.  These are for things that most runs don't care about, and so
+ * they all have sensible defaults.  The options are:
+ * <ul>
+ * <li>engine=tick|event : which engine simulates the runs (default tick)</li>
+ * <li>fastforward=on|off : whether the tick engine may skip over stretches where
+ * every truck is on the road (default off)</li>
+ * <li>storage=heap|offheap : where the state of the trucks and orders is kept
+ * (default heap)</li>
+ * <li>queues=linked|array : whether the warehouses queue their trucks up in
+ * linked DeQueues, or in ArrayDeQueues (default linked).  The trucks' manifests
+ * aren't queues at all in a run: they're Manifests, straight off the OrderTable</li>
+ * <li>log=text|binary|delta : whether run logs are written as text, in the much
+ * smaller BinaryLog format, which LogDecoder turns back into text, or as a DeltaLog,
+ * which only has what changed each tick (default text).  The event engine's logs
+ * only have what changed already, so it can't write delta logs.</li>
+ * <li>keyframes=N : how many ticks go between keyframes in a delta log
+ * (default 1000)</li>
+ * <li>compression=none|gzip|zlib : how run logs are compressed as they're written
+ * (see Compression), which also adds .gz or .zz to their names (default none)</li>
+ * <li>compressionlevel=0..9 : how hard to compress them (default 6)</li>
+ * <li>logstore=stream|mapped : whether run logs are written to one file as a
+ * stream, or into memory-mapped segment files with an index of where each tick
+ * starts, for MappedLogReader (default stream).  Mapped logs can't be compressed:
+ * the point of them is being able to jump into the middle.</li>
+ * <li>segmentsize=N : the size of each segment of a mapped log, in megabytes
+ * (default 64)</li>
+ * <li>loglevel=full|events|summary : how much of each tick goes into the run
+ * logs.  Events only has the trucks that did something and the warehouses whose
+ * queues changed; summary writes no run log at all, just the summary at the end,
+ * and never asks anything for its status (default full)</li>
+ * <li>logevery=N : only log every Nth tick (default 1)</li>
+ * <li>logtrucks=list : only log these trucks, as a list of ids and ranges of ids
+ * like 0,4,10-19 (default all of them)</li>
+ * </ul>
  * 
  * @author Calum McConnell
  * @version 0.0.1
@@ -60,41 +94,105 @@ public class Configuration
     public final int stepGapNanos;
     
     /**
-     * The list of valid configuration files, which are to be loaded
+     * Which engine simulates the runs: "tick", which steps every truck along one
+     * tick at a time (the Executer), or "event", which jumps straight from one
+     * arrival or departure to the next (the EventExecuter).  Set by the engine option.
      */
-    public static final String[] confFiles = {"basic-config.txt","faster-config.txt",
-                                                "big-slow-config.txt","big-fast-config.txt"};
+    public final String engine;
     
     /**
-     * The length of one side of a square, which will be used to
-     * depict Warehouses and Trucks.
+     * Whether the tick engine may jump over stretches of ticks where nothing but
+     * driving happens, logging them as a single line.  This only applies to
+     * headless runs: if someone is watching, they want to see the driving.
+     * Set by the fastforward option.
      */
-    public static final double objectSize = 5;
+    public final boolean fastForward;
+    
+    /**
+     * Whether the state of the trucks and orders of each run is kept off of the
+     * heap, where the garbage collector doesn't have to look at it: see Buffers.
+     * Set by the storage option.
+     */
+    public final boolean offHeap;
+    
+    /**
+     * Whether the warehouses keep their queues in ArrayDeQueues, rather than
+     * linked DeQueues.  Set by the queues option.
+     */
+    public final boolean arrayQueues;
+    
+    /**
+     * Whether run logs are written as "text", as "binary" (see BinaryLog), or as
+     * "delta" (see DeltaLog).  Set by the log option.
+     */
+    public final String logFormat;
+    
+    /**
+     * How many ticks go between keyframes in a delta log.  Set by the
+     * keyframes option.
+     */
+    public final int keyframeInterval;
     
     /**
-     * The color of an empty cargo unit in a truck
+     * How run logs are compressed: "none", "gzip", or "zlib" (see Compression).
+     * Set by the compression option.
      */
-    public static final Color emptyColor = Color.RED;
+    public final String compression;
     
     /**
-     * The color of a filled cargo unit in a truck
+     * How hard to compress run logs, from 0 to 9.  Set by the compressionlevel option.
      */
-    public static final Color filledColor = Color.ORANGE;
+    public final int compressionLevel;
     
     /**
-     * The color of an empty warehouse
+     * Whether run logs go into memory-mapped segments (see MappedLogStream), rather
+     * than one file.  Set by the logstore option.
      */
-    public static final Color warehouseColorEmpty = Color.BLACK;
+    public final boolean mappedLog;
     
     /**
-     * The color of a not-empty warehouse
+     * The size of each segment of a mapped log, in bytes.  Set by the segmentsize
+     * option, which is in megabytes.
      */
-    public static final Color warehouseColorBusy = Color.GRAY;
+    public final int segmentBytes;
+    
+    /**
+     * How much of each tick goes into the run logs: "full", "events" or "summary".
+     * Set by the loglevel option.
+     */
+    public final String logLevel;
+    
+    /**
+     * How many ticks go between the ones that are logged.  Set by the logevery option.
+     */
+    public final int logEvery;
+    
+    // which trucks get logged, by id, or null for all of them.  This is an array,
+    // which could be changed: so it stays in here, behind logsTruck()
+    private final boolean[] loggedTrucks;
+    
+    /**
+     * The list of valid configuration files, which are to be loaded
+     */
+    public static final String[] confFiles = {"basic-config.txt","faster-config.txt",
+                                                "big-slow-config.txt","big-fast-config.txt"};
+    
+    /**
+     * The length of one side of a square, which will be used to
+     * depict Warehouses and Trucks.
+     */
+    public static final double objectSize = 5;
 
     
     protected Configuration(int small, int medium, int large, int warehouses,
                             int orders, int router,
                             int width, int height, int delay, String name){
+        this(small, medium, large, warehouses, orders, router, width, height, delay, name, new String[0]);
+    }
+    
+    protected Configuration(int small, int medium, int large, int warehouses,
+                            int orders, int router,
+                            int width, int height, int delay, String name, String[] options){
         numSmallTrucks = small;
         numMediumTrucks= medium;
         numLargeTrucks = large;
@@ -117,6 +215,101 @@ public class Configuration
         // the delay is also removed, so you can slow it down and watch the same sim again,        
         initialRandomSeed = small + medium + large + warehouses + orders + height + width;
         this.name = name;
+        
+        // Now for the options.  The defaults go in first, and get replaced by
+        // whatever the options say; we can't assign to the finals more than once,
+        // so they get set all at once at the end.
+        String engineOption = "tick";
+        boolean fastForwardOption = false;
+        boolean offHeapOption = false;
+        boolean arrayQueuesOption = false;
+        String logOption = "text";
+        int keyframeOption = 1000;
+        String compressionOption = "none";
+        int levelOption = 6;
+        boolean mappedOption = false;
+        int segmentOption = 64;
+        String logLevelOption = "full";
+        int everyOption = 1;
+        boolean[] trucksOption = null;
+        for(String option : options){
+            int split = option.indexOf('=');
+            if(split < 0){
+                throw new IllegalArgumentException("Options look like key=value, not like " + option);
+            }
+            String key = option.substring(0, split);
+            String value = option.substring(split+1);
+            switch(key){
+                case "engine":
+                    engineOption = checkChoice(key, value, "tick", "event");
+                    break;
+                case "fastforward":
+                    fastForwardOption = checkChoice(key, value, "on", "off").equals("on");
+                    break;
+                case "storage":
+                    offHeapOption = checkChoice(key, value, "heap", "offheap").equals("offheap");
+                    break;
+                case "queues":
+                    arrayQueuesOption = checkChoice(key, value, "linked", "array").equals("array");
+                    break;
+                case "log":
+                    logOption = checkChoice(key, value, "text", "binary", "delta");
+                    break;
+                case "keyframes":
+                    keyframeOption = checkNumber(key, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "compression":
+                    compressionOption = checkChoice(key, value, "none", "gzip", "zlib");
+                    break;
+                case "compressionlevel":
+                    levelOption = checkNumber(key, value, 0, 9);
+                    break;
+                case "logstore":
+                    mappedOption = checkChoice(key, value, "stream", "mapped").equals("mapped");
+                    break;
+                case "segmentsize":
+                    // a mapping can't be any bigger than 2GB
+                    segmentOption = checkNumber(key, value, 1, 2047);
+                    break;
+                case "loglevel":
+                    logLevelOption = checkChoice(key, value, "full", "events", "summary");
+                    break;
+                case "logevery":
+                    everyOption = checkNumber(key, value, 1, Integer.MAX_VALUE);
+                    break;
+                case "logtrucks":
+                    trucksOption = checkTruckList(key, value, small + medium + large);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + key);
+            }
+        }
+        engine = engineOption;
+        fastForward = fastForwardOption;
+        offHeap = offHeapOption;
+        arrayQueues = arrayQueuesOption;
+        logFormat = logOption;
+        keyframeInterval = keyframeOption;
+        compression = compressionOption;
+        compressionLevel = levelOption;
+        mappedLog = mappedOption;
+        segmentBytes = segmentOption << 20;
+        logLevel = logLevelOption;
+        logEvery = everyOption;
+        loggedTrucks = trucksOption;
+        if(engine.equals("event") && logFormat.equals("delta")){
+            throw new IllegalArgumentException("The event engine can't write delta logs: try log=binary");
+        }
+        if(mappedLog && !compression.equals("none")){
+            throw new IllegalArgumentException("Mapped logs can't be compressed");
+        }
+        // binary and delta logs are read back by programs that expect every tick
+        if(!logFormat.equals("text") && (logLevel.equals("events") || logEvery > 1 || loggedTrucks != null)){
+            throw new IllegalArgumentException("Only text logs can leave things out: try loglevel=summary");
+        }
+        if(engine.equals("event") && logEvery > 1){
+            throw new IllegalArgumentException("The event engine only logs the ticks where something happens: it can't pick every Nth");
+        }
     }
     
     public static Configuration readConfigFile(File file){
@@ -143,12 +336,22 @@ public class Configuration
             
             int delay = scans.nextInt();
             
+            // everything after that is an option
+            DeQueue<String> options = new DeQueue<String>();
+            while(scans.hasNext()){
+                options.add(scans.next());
+            }
+            String[] optionArray = new String[options.size()];
+            for(int i = 0; i < optionArray.length; i++){
+                optionArray[i] = options.popFront();
+            }
+            
             // the accusation that the above lines were produced by running
             //sed 's/public final //g;s/\;/ = scans.nextInt();/'
             // over the instance variable declarations in this class
             // is completly and utterly baseless.
             
-            retval = new Configuration(numSmallTrucks, numMediumTrucks, numLargeTrucks, numWarehouses, numOrdersPerTruck, routerID, canvasWidth, canvasHeight, delay, file.getName());
+            retval = new Configuration(numSmallTrucks, numMediumTrucks, numLargeTrucks, numWarehouses, numOrdersPerTruck, routerID, canvasWidth, canvasHeight, delay, file.getName(), optionArray);
             // only a monster would have used
             //sed 's/.*public final int//g;s/\;/, /'
             // to produce the above line
@@ -168,6 +371,93 @@ public class Configuration
         return retval;
     }
     
+    /**
+     * Whether a truck's status goes into the run logs: see the logtrucks option
+     * 
+     * @param id the truck's place in the run's list of trucks
+     */
+    public boolean logsTruck(int id){
+        return loggedTrucks == null || loggedTrucks[id];
+    }
+    
+    /**
+     * Whether the run logs have everything in them, or leave some of it out
+     */
+    public boolean logsEverything(){
+        return logLevel.equals("full") && logEvery == 1 && loggedTrucks == null;
+    }
+    
+    /**
+     * Checks that an option has been given a list of truck ids, like 0,4,10-19
+     * 
+     * @param key the name of the option, for the error message
+     * @param value the value it was given
+     * @param truckCount the number of trucks in a run
+     * @return which trucks were listed, by id
+     * @throws IllegalArgumentException if any of the list isn't a truck id, or a
+     * range of them
+     */
+    private static boolean[] checkTruckList(String key, String value, int truckCount){
+        boolean[] listed = new boolean[truckCount];
+        for(String part : value.split(",")){
+            int dash = part.indexOf('-');
+            int first;
+            int last;
+            if(dash < 0){
+                first = last = checkNumber(key, part, 0, truckCount - 1);
+            }
+            else{
+                first = checkNumber(key, part.substring(0, dash), 0, truckCount - 1);
+                last = checkNumber(key, part.substring(dash + 1), first, truckCount - 1);
+            }
+            for(int id = first; id <= last; id++){
+                listed[id] = true;
+            }
+        }
+        return listed;
+    }
+    
+    /**
+     * Checks that an option has been given a whole number, in the range it can take.
+     * 
+     * @param key the name of the option, for the error message
+     * @param value the value it was given
+     * @param min the smallest number the option can take
+     * @param max the biggest number the option can take
+     * @return the number
+     * @throws IllegalArgumentException if the value isn't a whole number in the range
+     */
+    private static int checkNumber(String key, String value, int min, int max){
+        try{
+            int number = Integer.parseInt(value);
+            if(number >= min && number <= max){
+                return number;
+            }
+        }
+        catch(NumberFormatException e){
+            // that's just as wrong as a number that's out of range
+        }
+        throw new IllegalArgumentException("Invalid value " + value + " for option " + key);
+    }
+    
+    /**
+     * Checks that an option has been given one of the values it can take.
+     * 
+     * @param key the name of the option, for the error message
+     * @param value the value it was given
+     * @param choices every value the option can take
+     * @return the value, if it is one of the choices
+     * @throws IllegalArgumentException if the value isn't one of the choices
+     */
+    private static String checkChoice(String key, String value, String... choices){
+        for(String choice : choices){
+            if(choice.equals(value)){
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid value " + value + " for option " + key);
+    }
+    
     /**
      * This method converts a given router ID into a Class object that
      * represents that router.  Other classes will make use of this object to
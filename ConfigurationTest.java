@@ -19,6 +19,8 @@ public class ConfigurationTest
     File configFileTwo;
     File invalidConfig;
     File invalidRouter;
+    File withOptions;
+    File invalidOption;
     
     /**
      * Sets up the test fixture, creating a series of config files
@@ -35,6 +37,8 @@ public class ConfigurationTest
             configFileTwo = File.createTempFile("javatest",null);
             invalidConfig = File.createTempFile("javatest",null);
             invalidRouter = File.createTempFile("javatest",null);
+            withOptions = File.createTempFile("javatest",null);
+            invalidOption = File.createTempFile("javatest",null);
             
             // to be sure, tell the JVM to delete them on exit: unlike linux, 
             // windows lets tempfiles accumulate, until you use a cleaner app.
@@ -42,6 +46,8 @@ public class ConfigurationTest
             configFileTwo.deleteOnExit();
             invalidConfig.deleteOnExit();
             invalidRouter.deleteOnExit();
+            withOptions.deleteOnExit();
+            invalidOption.deleteOnExit();
             
             var f = new FileWriter(configFileOne);
             // the random "0" is for the router id
@@ -61,6 +67,17 @@ public class ConfigurationTest
             // and one more, with a almost-good file (except for the nonexistent router
             f = new FileWriter(invalidRouter);
             f.write("1 2 3 4 5 6 7 8 9");
+            f.close();
+            
+            // one with options tacked onto the end
+            f = new FileWriter(withOptions);
+            f.write("1 2 3 4 5 0 7 8 9 engine=event fastforward=on storage=offheap log=binary");
+            f.close();
+            
+            // and one with an option that doesn't exist
+            f = new FileWriter(invalidOption);
+            f.write("1 2 3 4 5 0 7 8 9 flux=capacitor");
+            f.close();
         }
         catch(Exception e){
             e.printStackTrace();
@@ -122,6 +139,158 @@ public class ConfigurationTest
 
     }
 
+    /**
+     * Makes a configuration just like configFileOne, with the given options
+     */
+    private static Configuration withArgs(String... options){
+        return new Configuration(1,2,3,4,5,0,7,8,9,"test", options);
+    }
+    
+    @Test
+    public void optionDefaults(){
+        // the defaults, when there are no options
+        Configuration config = Configuration.readConfigFile(configFileOne);
+        assertEquals("tick", config.engine);
+        assertFalse(config.fastForward);
+        assertFalse(config.offHeap);
+        assertFalse(config.arrayQueues);
+        assertEquals("text", config.logFormat);
+        assertEquals(1000, config.keyframeInterval);
+        assertEquals("none", config.compression);
+        assertEquals(6, config.compressionLevel);
+        assertFalse(config.mappedLog);
+        assertEquals(64 << 20, config.segmentBytes);
+        assertEquals("full", config.logLevel);
+        assertEquals(1, config.logEvery);
+        assertTrue(config.logsTruck(5));
+        assertTrue(config.logsEverything());
+    }
+    
+    @Test
+    public void optionsReadFromFile(){
+        Configuration config = Configuration.readConfigFile(withOptions);
+        assertEquals("event", config.engine);
+        assertTrue(config.fastForward);
+        assertTrue(config.offHeap);
+        assertEquals("binary", config.logFormat);
+        // the options don't mess with the seed
+        assertEquals(config.initialRandomSeed, 1+2+3+4+5+7+8);
+        
+        assertThrows(IOError.class, ()-> Configuration.readConfigFile(invalidOption));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("flux=capacitor"));
+    }
+    
+    @Test
+    public void engineOptions(){
+        Configuration config = withArgs("engine=event", "fastforward=on");
+        assertEquals("event", config.engine);
+        assertTrue(config.fastForward);
+        assertFalse(withArgs("fastforward=off").fastForward);
+        
+        // bad values for real options are no good either
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("engine=warp"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("engine"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("fastforward=yes"));
+    }
+    
+    @Test
+    public void storageOption(){
+        assertTrue(withArgs("storage=offheap").offHeap);
+        assertFalse(withArgs("storage=heap").offHeap);
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("storage=disk"));
+    }
+    
+    @Test
+    public void logFormatOptions(){
+        assertEquals("binary", withArgs("log=binary").logFormat);
+        
+        // delta logs, and how often they get keyframes
+        Configuration config = withArgs("log=delta", "keyframes=50");
+        assertEquals("delta", config.logFormat);
+        assertEquals(50, config.keyframeInterval);
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("log=xml"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("keyframes=0"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("keyframes=lots"));
+    }
+    
+    @Test
+    public void compressionOptions(){
+        Configuration config = withArgs("compression=gzip", "compressionlevel=9");
+        assertEquals("gzip", config.compression);
+        assertEquals(9, config.compressionLevel);
+        assertEquals("zlib", withArgs("compression=zlib").compression);
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("compression=zip"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("compressionlevel=10"));
+    }
+    
+    @Test
+    public void logStoreOptions(){
+        Configuration config = withArgs("logstore=mapped", "segmentsize=2");
+        assertTrue(config.mappedLog);
+        assertEquals(2 << 20, config.segmentBytes);
+        assertFalse(withArgs("logstore=stream").mappedLog);
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("logstore=tape"));
+        // a mapping can't be 2GB or more
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("segmentsize=2048"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("segmentsize=0"));
+    }
+    
+    @Test
+    public void samplingOptions(){
+        // logs that leave things out: there are 1+2+3 trucks
+        Configuration config = withArgs("loglevel=events", "logevery=10", "logtrucks=0,2-3");
+        assertEquals("events", config.logLevel);
+        assertEquals(10, config.logEvery);
+        assertTrue(config.logsTruck(0));
+        assertFalse(config.logsTruck(1));
+        assertTrue(config.logsTruck(3));
+        assertFalse(config.logsTruck(5));
+        assertFalse(config.logsEverything());
+        assertEquals("summary", withArgs("loglevel=summary").logLevel);
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("logtrucks=6"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("logtrucks=3-1"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("logevery=0"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("loglevel=verbose"));
+    }
+    
+    @Test
+    public void queuesOption(){
+        // the kind of queues the warehouses use
+        assertTrue(withArgs("queues=array").arrayQueues);
+        assertFalse(withArgs("queues=linked").arrayQueues);
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("queues=tree"));
+    }
+    
+    @Test
+    public void eventEngineCantWriteDeltaLogs(){
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("engine=event", "log=delta"));
+        // but it can write the others
+        assertEquals("binary", withArgs("engine=event", "log=binary").logFormat);
+    }
+    
+    @Test
+    public void mappedLogsCantBeCompressed(){
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("logstore=mapped", "compression=gzip"));
+        // saying there's no compression is fine
+        assertTrue(withArgs("logstore=mapped", "compression=none").mappedLog);
+    }
+    
+    @Test
+    public void onlyTextLogsLeaveThingsOut(){
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("log=binary", "logevery=2"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("log=binary", "loglevel=events"));
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("log=delta", "logtrucks=0"));
+        // though any of them can be skipped entirely
+        assertEquals("summary", withArgs("log=binary", "loglevel=summary").logLevel);
+    }
+    
+    @Test
+    public void eventEngineCantSampleTicks(){
+        assertThrows(IllegalArgumentException.class, ()-> withArgs("engine=event", "logevery=2"));
+        // it already only logs the ticks where something happens
+        assertEquals("events", withArgs("engine=event", "loglevel=events").logLevel);
+    }
+    
     /**
      * Tears down the test fixture, deleting those files
      * If this isn't invoked (say, due to someone canceling the tests),
@@ -137,5 +306,7 @@ public class ConfigurationTest
         configFileTwo.delete();
         invalidConfig.delete();
         invalidRouter.delete();
+        withOptions.delete();
+        invalidOption.delete();
     }
 }
@@ -42,15 +42,11 @@ public class DeQueue<E> extends DoublyLinkedList<E>
     }
     
     public DeQueue<E> clone(){
-        // bit of a nasty hack: but a necessary one: otherwise, the user can
-        // only get DoublyLinkedList clones, not clones of this.
-        
-        // we construct a new DeQueue, then append this queue onto it.
-        // make sure to conduct a clone first: since append conducts its own clone,
-        // we'd get an unintentional recursion otherwise
+        // we construct a new DeQueue, and clone this queue straight into it:
+        // otherwise, the user can only get DoublyLinkedList clones, not clones of this.
+        // If we're locked, that's O(1), since it just shares our nodes.
         DeQueue<E> retval = new DeQueue<E>();
-        retval.append(super.clone());
-        
+        cloneInto(retval);
         return retval;
     }
 }
@@ -0,0 +1,191 @@
+
+/**
+ * Writes delta logs, which the log=delta option writes instead of text.  Most of
+ * a text log is trucks driving along one more step towards where they were
+ * already going, which anyone who knows where they were, where they're going and
+ * how fast they go could have worked out for themselves.  So a delta log works a
+ * lot like a video does: every so often there is a keyframe, with the complete
+ * state of every warehouse and truck, and in between there are only the things
+ * that changed.  A DeltaLogReader rebuilds the state of the run at any tick, exactly,
+ * by starting at the keyframe before it and playing forwards.
+ * <p>
+ * To know what changed, this keeps its own copy of every truck's state, which it
+ * moves along a step each tick just as the reader will.  Whenever a truck doesn't
+ * match its copy (or something happened to it), it gets written out, and the copy
+ * is corrected.  So the reader ends up exactly where the run is, by construction:
+ * even when a truck does something the copy didn't expect, like skipping ahead
+ * during a fast-forward.
+ * <p>
+ * Every number is written big-end first, like a BinaryLog.  A log starts with a header:
+ * <ul>
+ * <li>the magic number, then the format version, then the keyframe interval</li>
+ * <li>the number of warehouses, then each one's coordinates (as doubles) and dock count</li>
+ * <li>the number of trucks, then each one's cargo capacity</li>
+ * </ul>
+ * That's followed by records, each of which is its kind, the number of bytes in
+ * the rest of it (so readers can skip it), and the tick it's for:
+ * <ul>
+ * <li>KEYFRAME: the state of everything after a tick.  Every warehouse's
+ * queue lengths, then every truck's state (see Truck.encodeState()).  There
+ * is one for tick 0, before anything happens, then one every so many ticks.</li>
+ * <li>DELTA: what changed in a tick.  A series of WAREHOUSE and TRUCK items
+ * (each of those is the tag, the index and the same entry a keyframe would
+ * have), ending with END.</li>
+ * </ul>
+ * A tick with no record at all is one where every truck on the road took one
+ * more step, and nothing else happened.  Like the other logs, the warehouses
+ * are as they were once they'd done their tick's work, before any new trucks
+ * joined their queues.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class DeltaLog
+{
+    /**
+     * The first four bytes of every delta log: "DLOG", in ASCII
+     */
+    public static final int MAGIC = 0x444C4F47;
+    public static final byte VERSION = 1;
+    
+    // the kinds of records
+    public static final byte KEYFRAME = 'K';
+    public static final byte DELTA = 'D';
+    
+    // the kinds of items in a DELTA
+    public static final byte WAREHOUSE = 'w';
+    public static final byte TRUCK = 't';
+    public static final byte END = 'e';
+    
+    private final Warehouse[] warehouses;
+    private final Truck[] trucks;
+    private final FleetState fleet;
+    private final int keyframeInterval;
+    
+    // what the reader thinks everything looks like
+    private final FleetState predicted;
+    private final int[] entering;
+    private final int[] leaving;
+    private int predictedTick = 0;
+    private int lastKeyframe = 0;
+    
+    // the record for the tick we're in the middle of
+    private boolean keyframe;
+    private int recordStart;
+    private int itemCount;
+    
+    /**
+     * @param warehouses every warehouse of the run, in order
+     * @param trucks every truck of the run, in order: their states must all live in
+     * the given fleet, in the same order
+     * @param fleet the state of the trucks
+     * @param keyframeInterval how many ticks go between keyframes.  The first tick
+     * after a fast-forward gets the keyframe, if it was due during one.
+     * @param offHeap whether to keep our copy of the trucks off of the heap, as
+     * with FleetState
+     */
+    public DeltaLog(Warehouse[] warehouses, Truck[] trucks, FleetState fleet, int keyframeInterval, boolean offHeap){
+        if(keyframeInterval < 1){
+            throw new IllegalArgumentException("There must be at least one tick between keyframes");
+        }
+        this.warehouses = warehouses;
+        this.trucks = trucks;
+        this.fleet = fleet;
+        this.keyframeInterval = keyframeInterval;
+        predicted = new FleetState(trucks.length, offHeap);
+        entering = new int[warehouses.length];
+        leaving = new int[warehouses.length];
+    }
+    
+    /**
+     * Writes the header, and a keyframe of how everything starts out
+     */
+    public void writeHeader(LogBuffer out){
+        out.putInt(MAGIC);
+        out.putByte(VERSION);
+        out.putInt(keyframeInterval);
+        out.putInt(warehouses.length);
+        for(Warehouse w : warehouses){
+            out.putDouble(w.location.xPos);
+            out.putDouble(w.location.yPos);
+            out.putByte(w.docks);
+        }
+        out.putInt(trucks.length);
+        for(Truck t : trucks){
+            out.putShort(t.getCapacity());
+        }
+        startTick(out, 0);
+        finishTick(out);
+    }
+    
+    /**
+     * Starts the record for a tick, and writes the warehouses into it.  Call this
+     * once the warehouses have done their work, then finishTick() once the trucks
+     * have done theirs, without handing the buffer over in between.
+     */
+    public void startTick(LogBuffer out, int tick){
+        if(tick <= predictedTick && tick != 0){
+            throw new IllegalArgumentException("Tick " + tick + " has already been logged");
+        }
+        // the reader moves the trucks along for each of the ticks it didn't hear
+        // about, and for this one: and so do we
+        while(predictedTick < tick){
+            for(int i = 0; i < trucks.length; i++){
+                predicted.step(i);
+            }
+            predictedTick++;
+        }
+        keyframe = tick == 0 || tick - lastKeyframe >= keyframeInterval;
+        recordStart = out.size();
+        itemCount = 0;
+        out.putByte(keyframe ? KEYFRAME : DELTA);
+        // filled in once we know it
+        out.putInt(0);
+        out.putInt(tick);
+        
+        for(int i = 0; i < warehouses.length; i++){
+            int enter = warehouses[i].getEnteringCount();
+            int exit = warehouses[i].getLeavingCount();
+            if(keyframe || enter != entering[i] || exit != leaving[i]){
+                if(!keyframe){
+                    out.putByte(WAREHOUSE);
+                    out.putInt(i);
+                }
+                warehouses[i].encodeStatus(out);
+                entering[i] = enter;
+                leaving[i] = exit;
+                itemCount++;
+            }
+        }
+    }
+    
+    /**
+     * Writes the trucks into the current tick's record, and finishes it off.  If
+     * nothing changed at all, the record is taken back out again.
+     */
+    public void finishTick(LogBuffer out){
+        for(int i = 0; i < trucks.length; i++){
+            if(keyframe || trucks[i].hasEvents() || !fleet.sameAs(i, predicted, i)){
+                if(!keyframe){
+                    out.putByte(TRUCK);
+                    out.putInt(i);
+                }
+                trucks[i].encodeState(out);
+                fleet.copyTo(i, predicted, i);
+                itemCount++;
+            }
+        }
+        if(keyframe){
+            lastKeyframe = predictedTick;
+        }
+        else if(itemCount == 0){
+            out.truncate(recordStart);
+            return;
+        }
+        else{
+            out.putByte(END);
+        }
+        // the length doesn't count the kind or the length itself
+        out.setInt(recordStart + 1, out.size() - recordStart - 5);
+    }
+}
@@ -0,0 +1,396 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a delta log (see DeltaLog), rebuilding the state of every warehouse and
+ * truck at whatever tick you ask for.  Seeking jumps to the nearest keyframe at
+ * or before the tick, and plays forwards from there: moving the trucks along
+ * exactly as the run did, so the positions come out the same down to the last bit.
+ * <p>
+ * When the log is opened, the whole thing is skimmed once to find the keyframes,
+ * which only means reading the start of each record.
+ * <p>
+ * Compressed logs (see Compression) can be read too.  There's no jumping into the
+ * middle of one of those, though: going back to a keyframe means decompressing
+ * everything before it all over again.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class DeltaLogReader implements AutoCloseable
+{
+    private final FileChannel file;
+    private DataInputStream in;
+    private final boolean compressed;
+    
+    // what the header told us
+    private final int keyframeInterval;
+    private final Point[] warehouseLocations;
+    private final int[] truckCapacities;
+    private final long headerSize;
+    
+    // where the keyframes are: the tick each one is for, and where it starts
+    private int[] keyframeTicks = new int[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframeCount = 0;
+    private int lastTick = 0;
+    
+    // the state at the current tick
+    private int tick = -1;
+    private final int[] entering;
+    private final int[] leaving;
+    private FleetState trucks;
+    private final int[] destinations;
+    // the events each truck had, and the tick they happened on
+    private final String[] events;
+    private final int[] eventTicks;
+    
+    // the start of the next record, if we've read it already
+    private boolean peeked = false;
+    private int nextKind;
+    private int nextTick;
+    
+    /**
+     * Opens a delta log, and reads it up to the first keyframe
+     *
+     * @throws IOException if the log can't be read, or isn't a delta log
+     */
+    public DeltaLogReader(File log) throws IOException{
+        file = FileChannel.open(log.toPath(), StandardOpenOption.READ);
+        try{
+            // if it doesn't start like a delta log, it had better be a compressed one
+            compressed = new DataInputStream(Channels.newInputStream(file)).readInt() != DeltaLog.MAGIC;
+            in = openAt(0);
+            if(in.readInt() != DeltaLog.MAGIC){
+                throw new IOException("Not a delta log");
+            }
+            int version = in.readByte();
+            if(version != DeltaLog.VERSION){
+                throw new IOException("Can't read version " + version + " delta logs");
+            }
+            keyframeInterval = in.readInt();
+            warehouseLocations = new Point[in.readInt()];
+            for(int i = 0; i < warehouseLocations.length; i++){
+                warehouseLocations[i] = new Point(in.readDouble(), in.readDouble());
+                // the dock count doesn't matter to us
+                in.readByte();
+            }
+            truckCapacities = new int[in.readInt()];
+            for(int i = 0; i < truckCapacities.length; i++){
+                truckCapacities[i] = in.readShort();
+            }
+            headerSize = 13 + 17L * warehouseLocations.length + 4 + 2L * truckCapacities.length;
+            findKeyframes();
+        }
+        catch(IOException e){
+            file.close();
+            throw e;
+        }
+        
+        entering = new int[warehouseLocations.length];
+        leaving = new int[warehouseLocations.length];
+        destinations = new int[truckCapacities.length];
+        events = new String[truckCapacities.length];
+        eventTicks = new int[truckCapacities.length];
+        seek(0);
+    }
+    
+    /**
+     * Skims every record, noting where the keyframes are and which tick is the last
+     */
+    private void findKeyframes() throws IOException{
+        long offset = headerSize;
+        while(true){
+            int kind = in.read();
+            if(kind == -1){
+                break;
+            }
+            int length = in.readInt();
+            int recordTick = in.readInt();
+            if(kind == DeltaLog.KEYFRAME){
+                if(keyframeCount == keyframeTicks.length){
+                    keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+                    keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+                }
+                keyframeTicks[keyframeCount] = recordTick;
+                keyframeOffsets[keyframeCount] = offset;
+                keyframeCount++;
+            }
+            else if(kind != DeltaLog.DELTA){
+                throw new IOException("Unknown record type " + kind);
+            }
+            lastTick = recordTick;
+            // we've already read the tick
+            in.skipNBytes(length - 4);
+            offset += 5 + length;
+        }
+        if(keyframeCount == 0 || keyframeTicks[0] != 0){
+            throw new IOException("The delta log doesn't start with a keyframe");
+        }
+    }
+    
+    /**
+     * Starts reading from the given number of bytes into the (uncompressed) log
+     */
+    private DataInputStream openAt(long offset) throws IOException{
+        peeked = false;
+        if(compressed){
+            file.position(0);
+            DataInputStream opened = new DataInputStream(Compression.decompress(Channels.newInputStream(file)));
+            opened.skipNBytes(offset);
+            return opened;
+        }
+        file.position(offset);
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(file), 1 << 16));
+    }
+    
+    /**
+     * Rebuilds the state of everything at the end of the given tick
+     *
+     * @throws IllegalArgumentException if the log doesn't go that far
+     * @throws IOException if the log can't be read
+     */
+    public void seek(int target) throws IOException{
+        if(target < 0 || target > lastTick){
+            throw new IllegalArgumentException("Tick " + target + " isn't in this log: it goes from 0 to " + lastTick);
+        }
+        // find the last keyframe at or before the target
+        int k = Arrays.binarySearch(keyframeTicks, 0, keyframeCount, target);
+        if(k < 0){
+            k = -k - 2;
+        }
+        // playing on from where we are is quicker, if that doesn't mean going past the keyframe
+        if(tick < keyframeTicks[k] || tick > target){
+            in = openAt(keyframeOffsets[k]);
+            // the keyframe is the first thing we'll read
+            tick = keyframeTicks[k] - 1;
+        }
+        while(tick < target){
+            if(!peeked){
+                int kind = in.read();
+                if(kind != -1){
+                    nextKind = kind;
+                    in.readInt();
+                    nextTick = in.readInt();
+                    peeked = true;
+                }
+            }
+            if(peeked && nextTick <= target){
+                // the ticks in between were nothing but driving
+                while(tick < nextTick - 1){
+                    stepTrucks();
+                }
+                peeked = false;
+                if(nextKind == DeltaLog.KEYFRAME){
+                    readKeyframe();
+                }
+                else{
+                    readDelta();
+                }
+            }
+            else{
+                stepTrucks();
+            }
+        }
+    }
+    
+    /**
+     * Moves the state on by one tick in which nothing happened
+     */
+    private void stepTrucks(){
+        for(int i = 0; i < truckCapacities.length; i++){
+            trucks.step(i);
+        }
+        tick++;
+    }
+    
+    private void readKeyframe() throws IOException{
+        tick = nextTick;
+        trucks = new FleetState(truckCapacities.length);
+        for(int i = 0; i < warehouseLocations.length; i++){
+            readWarehouse(i);
+        }
+        for(int i = 0; i < truckCapacities.length; i++){
+            readTruck(i);
+        }
+    }
+    
+    private void readDelta() throws IOException{
+        stepTrucks();
+        while(true){
+            int item = in.readByte();
+            switch(item){
+                case DeltaLog.WAREHOUSE:
+                    readWarehouse(in.readInt());
+                    break;
+                case DeltaLog.TRUCK:
+                    readTruck(in.readInt());
+                    break;
+                case DeltaLog.END:
+                    return;
+                default:
+                    throw new IOException("Unknown tick item " + item);
+            }
+        }
+    }
+    
+    private void readWarehouse(int index) throws IOException{
+        entering[index] = in.readInt();
+        leaving[index] = in.readInt();
+    }
+    
+    /**
+     * Reads the entry from Truck.encodeState()
+     */
+    private void readTruck(int index) throws IOException{
+        int flags = in.readByte();
+        if((flags & Truck.COMPLETE_FLAG) != 0){
+            trucks.setComplete(index);
+        }
+        else{
+            trucks.setPaused(index, (flags & Truck.PAUSED_FLAG) != 0);
+        }
+        int eventCount = in.readUnsignedByte();
+        if(eventCount > 0){
+            StringBuilder text = new StringBuilder();
+            for(int i = 0; i < eventCount; i++){
+                text.append(Truck.eventText(in.readByte()));
+                text.append(new Point(in.readDouble(), in.readDouble()).toString());
+                text.append(";  ");
+            }
+            events[index] = text.toString();
+            eventTicks[index] = tick;
+        }
+        double x = in.readDouble();
+        double y = in.readDouble();
+        trucks.setTarget(index, in.readDouble(), in.readDouble());
+        trucks.place(index, x, y, in.readDouble());
+        destinations[index] = in.readInt();
+        trucks.setCargo(index, in.readShort());
+    }
+    
+    /**
+     * Gets the tick that the state is for
+     */
+    public int getTick(){
+        return tick;
+    }
+    
+    /**
+     * Gets the last tick in the log
+     */
+    public int getLastTick(){
+        return lastTick;
+    }
+    
+    /**
+     * Gets how many ticks go between keyframes: seeking only has to play
+     * forwards for more than this many if the run fast-forwarded past one
+     */
+    public int getKeyframeInterval(){
+        return keyframeInterval;
+    }
+    
+    public int getWarehouseCount(){
+        return warehouseLocations.length;
+    }
+    
+    public int getTruckCount(){
+        return truckCapacities.length;
+    }
+    
+    public Point getWarehouseLocation(int warehouse){
+        return warehouseLocations[warehouse];
+    }
+    
+    public int getEnteringCount(int warehouse){
+        return entering[warehouse];
+    }
+    
+    public int getLeavingCount(int warehouse){
+        return leaving[warehouse];
+    }
+    
+    public Point getTruckLocation(int truck){
+        return new Point(trucks.getX(truck), trucks.getY(truck));
+    }
+    
+    public double getTruckX(int truck){
+        return trucks.getX(truck);
+    }
+    
+    public double getTruckY(int truck){
+        return trucks.getY(truck);
+    }
+    
+    public int getCargo(int truck){
+        return trucks.getCargo(truck);
+    }
+    
+    public int getCapacity(int truck){
+        return truckCapacities[truck];
+    }
+    
+    /**
+     * Gets the index of the warehouse a truck is heading to, or -1 if it isn't
+     */
+    public int getDestination(int truck){
+        return destinations[truck];
+    }
+    
+    public boolean isPaused(int truck){
+        return trucks.isPaused(truck);
+    }
+    
+    public boolean isComplete(int truck){
+        return trucks.isComplete(truck);
+    }
+    
+    /**
+     * The same thing Warehouse.status() said at this tick
+     */
+    public String warehouseStatus(int warehouse){
+        return entering[warehouse] + " Trucks entering, " + leaving[warehouse] + " Trucks leaving";
+    }
+    
+    /**
+     * The same thing Truck.status() said at this tick
+     */
+    public String truckStatus(int truck){
+        if(trucks.isComplete(truck)){
+            return "";
+        }
+        StringBuilder status = new StringBuilder();
+        if(events[truck] != null && eventTicks[truck] == tick){
+            status.append(events[truck]);
+        }
+        status.append("Location: ");
+        status.append(getTruckLocation(truck).toString());
+        status.append(" Destination: ");
+        if(destinations[truck] < 0){
+            status.append("None");
+        }
+        else{
+            status.append(warehouseLocations[destinations[truck]].toString());
+        }
+        status.append(" Cargo: ");
+        status.append(trucks.getCargo(truck));
+        status.append("/");
+        status.append(truckCapacities[truck]);
+        if(trucks.isPaused(truck)){
+            status.append(" Paused, awaiting warehouse");
+        }
+        return status.toString();
+    }
+    
+    @Override
+    public void close() throws IOException{
+        file.close();
+    }
+}
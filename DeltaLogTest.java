@@ -0,0 +1,155 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+
+/**
+ * Tests that a DeltaLogReader gets back exactly the state that was written into
+ * a DeltaLog, at every tick: whether it gets there by reading straight through,
+ * or by jumping around.  Two identical little worlds are run side by side: one of
+ * them notes down its statuses, and the other writes a delta log.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class DeltaLogTest
+{
+    static final int ticks = 300;
+    File logFile;
+    Warehouse[] warehouses;
+    Truck[] trucks;
+    FleetState fleet;
+    // what the first world said about itself, each tick
+    String[][] warehouseStatuses;
+    String[][] truckStatuses;
+    double[][] truckXs;
+    
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        logFile = File.createTempFile("javatest", null);
+        logFile.deleteOnExit();
+        
+        buildWorld();
+        warehouseStatuses = new String[ticks + 1][warehouses.length];
+        truckStatuses = new String[ticks + 1][trucks.length];
+        truckXs = new double[ticks + 1][trucks.length];
+        for(int tick = 1; tick <= ticks; tick++){
+            // just like a tick of the Executer
+            for(int i = 0; i < warehouses.length; i++){
+                warehouses[i].action();
+                warehouseStatuses[tick][i] = warehouses[i].status();
+            }
+            for(int i = 0; i < trucks.length; i++){
+                trucks[i].action();
+                truckStatuses[tick][i] = trucks[i].status();
+                truckXs[tick][i] = fleet.getX(i);
+            }
+        }
+    }
+    
+    @AfterEach
+    public void tearDown()
+    {
+        logFile.delete();
+    }
+    
+    /**
+     * Builds a little world: it's the same one every time
+     */
+    public void buildWorld(){
+        Random rand = new Random(1234);
+        warehouses = new Warehouse[5];
+        for(int i = 0; i < warehouses.length; i++){
+            warehouses[i] = new Warehouse(new Point(rand.nextDouble()*100 - 30, rand.nextDouble()*100), i%2+1, i);
+        }
+        trucks = new Truck[8];
+        fleet = new FleetState(trucks.length);
+        for(int i = 0; i < trucks.length; i++){
+            DeQueue<ShipmentOrder> manifest = new DeQueue<ShipmentOrder>();
+            for(int j = 0; j < 3; j++){
+                int start = rand.nextInt(warehouses.length);
+                int end = (start + 1 + rand.nextInt(warehouses.length - 1)) % warehouses.length;
+                manifest.add(new ShipmentOrder(warehouses[start], warehouses[end]));
+            }
+            trucks[i] = new MediumTruck(manifest, BetterRouter.class, new Point(rand.nextDouble()*100, rand.nextDouble()*100));
+            trucks[i].attachTo(fleet, i);
+        }
+    }
+    
+    /**
+     * Runs the second world, writing a delta log of it
+     */
+    public void writeLog(int keyframeInterval) throws Exception{
+        buildWorld();
+        DeltaLog delta = new DeltaLog(warehouses, trucks, fleet, keyframeInterval, false);
+        LogBuffer out = new LogBuffer(0);
+        delta.writeHeader(out);
+        for(int tick = 1; tick <= ticks; tick++){
+            for(Warehouse w : warehouses){
+                w.action();
+            }
+            delta.startTick(out, tick);
+            for(Truck t : trucks){
+                t.action();
+            }
+            delta.finishTick(out);
+        }
+        try(FileOutputStream file = new FileOutputStream(logFile)){
+            out.writeTo(file);
+        }
+    }
+    
+    private void assertStateIs(DeltaLogReader reader, int tick){
+        assertEquals(tick, reader.getTick());
+        for(int i = 0; i < warehouses.length; i++){
+            assertEquals(warehouseStatuses[tick][i], reader.warehouseStatus(i));
+        }
+        for(int i = 0; i < trucks.length; i++){
+            assertEquals(truckStatuses[tick][i], reader.truckStatus(i));
+            // not just the same to the hundredth: exactly the same
+            assertEquals(truckXs[tick][i], reader.getTruckX(i));
+        }
+    }
+    
+    @Test
+    public void readingStraightThrough() throws Exception{
+        writeLog(1000);
+        try(DeltaLogReader reader = new DeltaLogReader(logFile)){
+            assertEquals(0, reader.getTick());
+            assertEquals(trucks.length, reader.getTruckCount());
+            for(int tick = 1; tick <= reader.getLastTick(); tick++){
+                reader.seek(tick);
+                assertStateIs(reader, tick);
+            }
+        }
+        // and with only the one keyframe, it really is smaller than the text
+        assertTrue(logFile.length() * 10 < ticks * (warehouses.length * 40 + trucks.length * 80));
+    }
+    
+    @Test
+    public void jumpingAround() throws Exception{
+        writeLog(25);
+        Random rand = new Random(5);
+        try(DeltaLogReader reader = new DeltaLogReader(logFile)){
+            for(int i = 0; i < 100; i++){
+                int tick = 1 + rand.nextInt(reader.getLastTick());
+                reader.seek(tick);
+                assertStateIs(reader, tick);
+            }
+            assertThrows(IllegalArgumentException.class, ()-> reader.seek(reader.getLastTick() + 1));
+        }
+    }
+    
+    @Test
+    public void otherFilesAreRefused() throws Exception{
+        try(FileOutputStream file = new FileOutputStream(logFile)){
+            file.write("Warehouse 0: 0 Trucks entering, 0 Trucks leaving\n".getBytes("US-ASCII"));
+        }
+        assertThrows(java.io.IOException.class, ()-> new DeltaLogReader(logFile));
+    }
+}
@@ -1,14 +1,32 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A standard-issue DoublyLinkedList.
  * This class is moderately optimized for runtime speed: it will access from
  * head or tail depending on which is closest.
+ * <p>
+ * It can be gone through with a for-each loop, or as a stream.  Each of those
+ * gets its own cursor, unlike the fake queue: so any number of them can be reading
+ * the same list at once, even on different threads, as long as nobody is changing
+ * it in the meantime.  Locked lists are safe to read from anywhere.
+ * <p>
+ * Cloning a locked list doesn't copy anything: the clone just shares the locked
+ * list's nodes, since nobody is allowed to change those.  Popping off either end
+ * of a clone like that only moves its own head or tail along, so it keeps on
+ * sharing; anything else that changes it gets it a copy of its own first.  So
+ * handing out clones of a locked manifest, to router after router, is O(1) each.
  *
  * @author Calum McConnell
  * @version 0.0.1
  */
-public class DoublyLinkedList<E>
+public class DoublyLinkedList<E> implements Iterable<E>
 {
     private Node<E> head;
     private Node<E> tail;
@@ -16,6 +34,9 @@ public class DoublyLinkedList<E>
     private int len = 0;
     // indicates whether we are locked; has nothing to do with GC
     private boolean finalized = false;
+    // whether our nodes belong to some locked list, which we only have a window
+    // onto: if so, they might go on past our head and tail, and we mustn't change them
+    private boolean shared = false;
     
     /**
      * This is an internal method that fetches Node objects.
@@ -77,6 +98,29 @@ public class DoublyLinkedList<E>
         }
         
         Node<E> target = getNodeAtDex(index);  
+        if(shared){
+            if(index == 0 || index == len - 1){
+                // the ends of shared nodes can be dropped by just narrowing our window
+                if(curr == target){
+                    curr = after(target);
+                }
+                if(len == 1){
+                    head = null;
+                    tail = null;
+                    shared = false;
+                }
+                else if(index == 0){
+                    head = head.next;
+                }
+                else{
+                    tail = tail.prev;
+                }
+                len--;
+                return;
+            }
+            unshare();
+            target = getNodeAtDex(index);
+        }
         // check if we're at the front
         if(target.prev != null){
             target.prev.next = target.next;
@@ -123,6 +167,9 @@ public class DoublyLinkedList<E>
         if(finalized){
             throw new IllegalStateException("This list has been locked: modifications are impossible");
         }
+        if(shared){
+            unshare();
+        }
         
         // make the new node
         Node<E> newNode = new Node<E>();
@@ -188,7 +235,7 @@ public class DoublyLinkedList<E>
             throw new IndexOutOfBoundsException("fake pop went too far this time!");
         }
         E retval = curr.data;
-        curr = curr.next;
+        curr = after(curr);
         return retval;
     }
     
@@ -220,11 +267,146 @@ public class DoublyLinkedList<E>
         while(cur != null){
             G result = function.apply(cur.data);
             results.add(result);
-            cur = cur.next;
+            cur = after(cur);
         }
         return results;
     }
     
+    /**
+     * Does something with each member of this list, in order.  Unlike a for-each
+     * loop or applyFunctionToList(), this makes nothing at all along the way: it
+     * just walks the nodes.
+     */
+    @Override
+    public void forEach(Consumer<? super E> action){
+        for(Node<E> cur = head; cur != null; cur = after(cur)){
+            action.accept(cur.data);
+        }
+    }
+    
+    /**
+     * Combines every member of this list into one double, in order: for totalling
+     * something up, say, without boxing a Double at every step.
+     *
+     * @param initial what to start with: what we return, if the list is empty
+     * @param folder given the total so far and the next element, gives the new total
+     * @return the total once every element has been folded in
+     */
+    public double foldDouble(double initial, DoubleFolder<? super E> folder){
+        double total = initial;
+        for(Node<E> cur = head; cur != null; cur = after(cur)){
+            total = folder.fold(total, cur.data);
+        }
+        return total;
+    }
+    
+    /**
+     * Just like foldDouble(), but for longs: counts, times in nanoseconds and so on
+     */
+    public long foldLong(long initial, LongFolder<? super E> folder){
+        long total = initial;
+        for(Node<E> cur = head; cur != null; cur = after(cur)){
+            total = folder.fold(total, cur.data);
+        }
+        return total;
+    }
+    
+    /**
+     * Like applyFunctionToList(), but the results go into an array the caller
+     * already has, rather than a new list.  Hang on to the array, and calling this
+     * again makes no garbage at all.
+     *
+     * @param destination where the results go, in the same order as this list.
+     * Anything past the end of this list is left alone.
+     * @param function the function to apply to each of the list members
+     * @return the destination, for convenience
+     * @throws IndexOutOfBoundsException if the destination is too small to hold them all
+     */
+    public <G> G[] mapInto(G[] destination, Function<? super E, ? extends G> function){
+        if(destination.length < len){
+            throw new IndexOutOfBoundsException(
+                String.format("An array of %d can't hold the results for a list of %d", destination.length, len));
+        }
+        int i = 0;
+        for(Node<E> cur = head; cur != null; cur = after(cur)){
+            destination[i++] = function.apply(cur.data);
+        }
+        return destination;
+    }
+    
+    /**
+     * Just like mapInto(), but for functions that give doubles, so that none of
+     * them get boxed up
+     */
+    public double[] mapToDoubles(double[] destination, ToDoubleFunction<? super E> function){
+        if(destination.length < len){
+            throw new IndexOutOfBoundsException(
+                String.format("An array of %d can't hold the results for a list of %d", destination.length, len));
+        }
+        int i = 0;
+        for(Node<E> cur = head; cur != null; cur = after(cur)){
+            destination[i++] = function.applyAsDouble(cur.data);
+        }
+        return destination;
+    }
+    
+    /**
+     * Finds the member of this list with the smallest key: the first one, if
+     * several tie.  Members whose key is infinite or NaN are never picked, so a key
+     * function can rule members out by giving them Double.POSITIVE_INFINITY.
+     *
+     * @param key works out the key for a member.  It is called once per member.
+     * @return the member with the smallest key, or null if there isn't one
+     */
+    public E argMin(ToDoubleFunction<? super E> key){
+        double least = Double.POSITIVE_INFINITY;
+        E retval = null;
+        for(Node<E> cur = head; cur != null; cur = after(cur)){
+            double value = key.applyAsDouble(cur.data);
+            if(value < least){
+                least = value;
+                retval = cur.data;
+            }
+        }
+        return retval;
+    }
+    
+    /**
+     * Gets a new iterator over this list, from the start.  It has its own cursor:
+     * it doesn't touch the fake queue, or any other iterator.
+     */
+    @Override
+    public Iterator<E> iterator(){
+        return new NodeIterator(head);
+    }
+    
+    /**
+     * Gets a spliterator over this list.  It knows exactly how many elements it
+     * has, and so does every piece it is split into: so parallel streams split
+     * it evenly.  Splitting does have to walk to the middle of the piece being
+     * split, but that walk is done by whichever thread is splitting it.
+     */
+    @Override
+    public Spliterator<E> spliterator(){
+        return new NodeSpliterator(head, len);
+    }
+    
+    /**
+     * Gets a stream of the elements of this list, in order
+     */
+    public Stream<E> stream(){
+        return StreamSupport.stream(spliterator(), false);
+    }
+    
+    /**
+     * Gets a stream of the elements of this list, which may be worked on by
+     * several threads at once.  Whatever it does to the elements had better
+     * be safe to do from several threads, too.
+     */
+    public Stream<E> parallelStream(){
+        return StreamSupport.stream(spliterator(), true);
+    }
+    
     /**
      * This overrides the toString method, to provide a string representation
      * of the entire dataset.
@@ -238,7 +420,7 @@ public class DoublyLinkedList<E>
         while(cur != null){
             retval += cur.data.toString();
             retval += ", ";
-            cur = cur.next;
+            cur = after(cur);
         }
         return retval;
     }
@@ -277,7 +459,9 @@ public class DoublyLinkedList<E>
      */
     public void clear(){
         // set len=0, drop head, tail, and curr references.
+        // shared nodes are just let go of: someone else still has them
         len = 0;
+        shared = false;
         head = null;
         curr = null;
         tail = null;
@@ -290,8 +474,26 @@ public class DoublyLinkedList<E>
      * grafted onto this one.  Must not be empty.
      */
     public void append(DoublyLinkedList<E> other){
-        // switch to a clone of other, to avoid breakage
-        other = other.clone();
+        // some lists (like an ArrayDeQueue) don't keep their elements in nodes:
+        // there's nothing to graft on, so they're copied over one at a time
+        if(!other.keepsNodes()){
+            other.forEach(this::add);
+            return;
+        }
+        
+        // switch to a copy of other, to avoid breakage.  This has to be a real
+        // copy, not a clone: a clone of a locked list would share its nodes,
+        // and we're about to change them.
+        DoublyLinkedList<E> copy = new DoublyLinkedList<E>();
+        other.copyNodesInto(copy);
+        other = copy;
+        if(other.len == 0){
+            return;
+        }
+        // likewise, our own tail is about to be changed
+        if(shared){
+            unshare();
+        }
         
         if(len != 0){
             // change tail to point at the other's head as the next element
@@ -309,46 +511,110 @@ public class DoublyLinkedList<E>
         
     }
     
+    /**
+     * Whether this list really keeps its elements in our nodes.  Subclasses that
+     * keep them somewhere else (like an ArrayDeQueue) leave our head and tail
+     * null, and must say so here: then nobody goes looking for nodes that
+     * aren't there, and they must override cloneInto() as well.
+     */
+    protected boolean keepsNodes(){
+        return true;
+    }
+    
     /**
      * Clones the object.  This also clears the isLocked flag, which
      * may be useful.  Note that contained elements are not cloned:
      * this is a shallow cloning operation
+     * <p>
+     * Cloning a locked list (or a clone that's still sharing one's nodes) is
+     * O(1): the clone shares the nodes, until it needs to change them.
      * 
      * @return a shallow clone of this list
      */
     public DoublyLinkedList<E> clone(){
         DoublyLinkedList<E> retval = new DoublyLinkedList<E>();
-        // if our list is empty, return this as-is
-        if(len == 0){
-            return retval;
+        cloneInto(retval);
+        return retval;
+    }
+    
+    /**
+     * Does the work of clone(), for a new, empty list of whatever kind the
+     * subclass is: so subclasses can clone themselves without copying twice
+     */
+    protected void cloneInto(DoublyLinkedList<E> retval){
+        if(finalized || shared){
+            // nobody can change these nodes: so there's no harm in sharing them
+            retval.head = head;
+            retval.tail = tail;
+            retval.len = len;
+            retval.shared = len != 0;
         }
-        
+        else{
+            copyNodesInto(retval);
+        }
+        retval.curr = retval.head;
+    }
+    
+    /**
+     * Gives another list a copy of our nodes, of its very own: everything from
+     * our head to our tail, with its fake queue wherever ours is
+     */
+    private void copyNodesInto(DoublyLinkedList<E> target){
         // we can't just copy over the head/tail refs, that'd be too easy
         // iterate through, duplicating each element and tacking it on
-        Node<E> nextOrig = head;
-        Node<E> tmp = new Node<E>();
-        tmp.data = head.data;
-        retval.head = tmp;
-        Node<E> prevClone = tmp;
-        while(nextOrig.next != null){
-            // grab next element
-            nextOrig = nextOrig.next;
-            prevClone = tmp;
-            
-            // init our newest node
-            tmp = new Node<E>();
-            tmp.data = nextOrig.data;
-            tmp.prev = prevClone;
-            
-            // connect it in, and prp for next loop.
-            prevClone.next = tmp;
-            
+        Node<E> newHead = null;
+        Node<E> newTail = null;
+        Node<E> newCurr = null;
+        for(Node<E> orig = head; orig != null; orig = after(orig)){
+            Node<E> tmp = new Node<E>();
+            tmp.data = orig.data;
+            tmp.prev = newTail;
+            if(newTail == null){
+                newHead = tmp;
+            }
+            else{
+                newTail.next = tmp;
+            }
+            if(orig == curr){
+                newCurr = tmp;
+            }
+            newTail = tmp;
         }
-        retval.tail = tmp;
-        // set up some auxilary variables
-        retval.len = len;
-        retval.curr = retval.head;
-        return retval;
+        target.head = newHead;
+        target.tail = newTail;
+        target.curr = newCurr;
+        target.len = len;
+        target.shared = false;
+    }
+    
+    /**
+     * Trades the nodes we're sharing for a copy of our own, so we can change them
+     */
+    private void unshare(){
+        copyNodesInto(this);
+    }
+    
+    /**
+     * Gets the node after the given one, or null if that was our tail.  The
+     * node's own next pointer isn't enough: in shared nodes, it might go on past
+     * the end of our window.
+     */
+    private Node<E> after(Node<E> node){
+        return node == tail ? null : node.next;
+    }
+    
+    /**
+     * One step of foldDouble()
+     */
+    public interface DoubleFolder<E> {
+        double fold(double total, E element);
+    }
+    
+    /**
+     * One step of foldLong()
+     */
+    public interface LongFolder<E> {
+        long fold(long total, E element);
     }
     
     private class Node<E>{
@@ -356,4 +622,104 @@ public class DoublyLinkedList<E>
         Node<E> prev;
         Node<E> next;
     }
+    
+    /**
+     * Walks the list from a node onwards, with a cursor all of its own
+     */
+    private class NodeIterator implements Iterator<E>
+    {
+        private Node<E> next;
+        
+        NodeIterator(Node<E> start){
+            next = start;
+        }
+        
+        @Override
+        public boolean hasNext(){
+            return next != null;
+        }
+        
+        @Override
+        public E next(){
+            if(next == null){
+                throw new NoSuchElementException("The list has no more elements");
+            }
+            E retval = next.data;
+            next = after(next);
+            return retval;
+        }
+    }
+    
+    /**
+     * Covers a stretch of the list: some number of nodes, from the given one
+     */
+    private class NodeSpliterator implements Spliterator<E>
+    {
+        private Node<E> next;
+        private int remaining;
+        
+        NodeSpliterator(Node<E> start, int count){
+            next = start;
+            remaining = count;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action){
+            if(remaining == 0){
+                return false;
+            }
+            E data = next.data;
+            next = next.next;
+            remaining--;
+            action.accept(data);
+            return true;
+        }
+        
+        @Override
+        public void forEachRemaining(Consumer<? super E> action){
+            Node<E> cur = next;
+            int count = remaining;
+            // empty ourselves out first, in case the action throws
+            next = null;
+            remaining = 0;
+            for(int i = count; i > 0; i--){
+                action.accept(cur.data);
+                cur = cur.next;
+            }
+        }
+        
+        /**
+         * Hands the first half of our stretch to a new spliterator, and keeps the
+         * second half.  Pieces of one element aren't worth splitting.
+         */
+        @Override
+        public Spliterator<E> trySplit(){
+            if(remaining < 2){
+                return null;
+            }
+            int half = remaining / 2;
+            NodeSpliterator front = new NodeSpliterator(next, half);
+            for(int i = 0; i < half; i++){
+                next = next.next;
+            }
+            remaining -= half;
+            return front;
+        }
+        
+        @Override
+        public long estimateSize(){
+            return remaining;
+        }
+        
+        @Override
+        public int characteristics(){
+            // a locked list can't have anything added or removed: but the elements
+            // themselves can still change, so they aren't NONNULL or anything like that
+            int traits = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+            if(finalized){
+                traits |= Spliterator.IMMUTABLE;
+            }
+            return traits;
+        }
+    }
 }
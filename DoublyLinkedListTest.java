@@ -399,6 +399,68 @@ public class DoublyLinkedListTest
         }
     }
     
+    /**
+     * Ensure that clones of locked lists (which may share the original's insides)
+     * still act like copies: whatever gets done to the clones, and to clones of
+     * the clones, nothing else sees it
+     */
+    @Test
+    public void testClonesOfLockedLists(){
+        for (DoublyLinkedList<Integer> i : testArraysArray){
+            ArrayList<Integer> expected = convertToArrayList(i);
+            i.lock();
+            
+            // pop off both ends of one clone
+            DoublyLinkedList<Integer> popped = i.clone();
+            assertFalse(popped.isLocked());
+            ArrayList<Integer> poppedExpected = new ArrayList<Integer>(expected);
+            if(expected.size() >= 2){
+                popped.remove(0);
+                popped.remove(popped.size() - 1);
+                poppedExpected.remove(0);
+                poppedExpected.remove(poppedExpected.size() - 1);
+            }
+            assertEquals(poppedExpected, convertToArrayList(popped));
+            // nothing past our ends sneaks in
+            ArrayList<Integer> walked = new ArrayList<Integer>();
+            popped.forEach(walked::add);
+            assertEquals(poppedExpected, walked);
+            walked.clear();
+            for(Integer n : popped){
+                walked.add(n);
+            }
+            assertEquals(poppedExpected, walked);
+            String poppedString = "";
+            for(Integer n : poppedExpected){
+                poppedString += n + ", ";
+            }
+            assertEquals(poppedString, popped.toString());
+            popped.resetFakeQueue();
+            for(int n = 0; n < popped.size(); n++){
+                popped.fakePop();
+            }
+            assertThrows(IndexOutOfBoundsException.class, ()->popped.fakePop());
+            
+            // a clone of the clone, which then gets added to in the middle and the end
+            DoublyLinkedList<Integer> grown = popped.clone();
+            grown.add(grown.size() / 2, getSampleValue());
+            grown.add(getSampleValue());
+            poppedExpected.add(poppedExpected.size() / 2, getSampleValue());
+            poppedExpected.add(getSampleValue());
+            assertEquals(poppedExpected, convertToArrayList(grown));
+            
+            // and one that has something else appended onto it
+            DoublyLinkedList<Integer> appended = i.clone();
+            appended.append(i);
+            assertEquals(expected.size() * 2, appended.size());
+            
+            // none of which touched the original, or the first clone
+            assertEquals(expected, convertToArrayList(i));
+            assertEquals(expected.size() - (expected.size() >= 2 ? 2 : 0), popped.size());
+            assertEquals(expected, convertToArrayList(i.clone()));
+        }
+    }
+    
     /**
      * This examines the sample arrays, and verifies that they are
      * as I expect them to be. It also tests the toString method.
@@ -440,6 +502,92 @@ public class DoublyLinkedListTest
     }
     
     
+    /**
+     * Test that for-each loops see every element in order, and that several of
+     * them can go through the same list at once without getting in each other's way
+     * (or the fake queue's)
+     */
+    @Test
+    public void testIterators(){
+        for(DoublyLinkedList<Integer> list : testArraysArray){
+            ArrayList<Integer> expected = convertToArrayList(list);
+            if(!list.isEmpty()){
+                list.fakePop();
+            }
+            
+            ArrayList<Integer> outer = new ArrayList<Integer>();
+            for(Integer i : list){
+                outer.add(i);
+                // a whole other trip through, every step of the first one
+                ArrayList<Integer> inner = new ArrayList<Integer>();
+                for(Integer j : list){
+                    inner.add(j);
+                }
+                assertEquals(expected, inner);
+            }
+            assertEquals(expected, outer);
+            
+            // the fake queue is still just one along
+            if(list.size() > 1){
+                assertEquals(list.get(1), list.fakePop());
+            }
+            
+            java.util.Iterator<Integer> it = list.iterator();
+            for(int i = 0; i < list.size(); i++){
+                assertTrue(it.hasNext());
+                it.next();
+            }
+            assertFalse(it.hasNext());
+            assertThrows(java.util.NoSuchElementException.class, ()->it.next());
+        }
+    }
+    
+    /**
+     * Test that streams see every element, whether or not they're parallel, and
+     * that the spliterator splits evenly, all the way down
+     */
+    @Test
+    public void testStreams(){
+        for(DoublyLinkedList<Integer> list : testArraysArray){
+            ArrayList<Integer> expected = convertToArrayList(list);
+            assertEquals(expected, list.stream().collect(java.util.stream.Collectors.toList()));
+            // collecting keeps the order, even when it's done in pieces
+            assertEquals(expected, list.parallelStream().collect(java.util.stream.Collectors.toList()));
+            assertEquals(list.size(), list.parallelStream().count());
+        }
+        
+        DoublyLinkedList<Integer> big = new DoublyLinkedList<Integer>();
+        long sum = 0;
+        for(int i = 0; i < 10000; i++){
+            big.add(i);
+            sum += i;
+        }
+        assertEquals(sum, big.parallelStream().mapToLong(Integer::longValue).sum());
+        
+        java.util.Spliterator<Integer> back = big.spliterator();
+        assertTrue(back.hasCharacteristics(java.util.Spliterator.SIZED | java.util.Spliterator.SUBSIZED));
+        assertFalse(back.hasCharacteristics(java.util.Spliterator.IMMUTABLE));
+        java.util.Spliterator<Integer> front = back.trySplit();
+        assertEquals(5000, front.estimateSize());
+        assertEquals(5000, back.estimateSize());
+        // the halves are the halves they say they are
+        front.tryAdvance((Integer i) -> assertEquals(0, i));
+        back.tryAdvance((Integer i) -> assertEquals(5000, i));
+        assertEquals(4999, front.estimateSize());
+        
+        // keep splitting a piece: it ends up as single elements, which don't split
+        java.util.Spliterator<Integer> piece = back;
+        while(piece.estimateSize() > 1){
+            java.util.Spliterator<Integer> other = piece.trySplit();
+            assertTrue(Math.abs(other.estimateSize() - piece.estimateSize()) <= 1);
+            piece = other;
+        }
+        assertNull(piece.trySplit());
+        
+        big.lock();
+        assertTrue(big.spliterator().hasCharacteristics(java.util.Spliterator.IMMUTABLE));
+    }
+    
     /**
      * This is a helper method: it converts a MyArrayList to an ArrayList<Integer>
      * This makes it easier to build the test arrays dynamically,
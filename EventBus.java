@@ -0,0 +1,260 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands out everything that happens in a run, as typed SimulationEvents, to any
+ * number of EventSubscribers: each on a thread of its own.
+ * <p>
+ * This works a lot like the LMAX Disruptor.  The events live in a ring of slots
+ * that are all made up front, and get filled in again each time around, so
+ * publishing an event never allocates anything.  Publishers claim the next slot
+ * by counting up a sequence number, fill it in, then mark it as published.  Each
+ * subscriber follows along behind with a sequence number of its own, and the
+ * publishers never lap the slowest of them: if the ring fills up, they wait.
+ * Trucks and warehouses publish from inside the parallel phases of a tick, so
+ * there can be many publishers at once; events from the same phase come out
+ * in whatever order they were claimed in.
+ * <p>
+ * The simulation doesn't even make one of these unless someone has subscribed:
+ * with no bus, publishing is just a check for null.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class EventBus
+{
+    private final SimulationEvent[] slots;
+    private final int mask;
+    // the sequence number of the last event in each slot, once it has been published
+    private final AtomicLongArray published;
+    // the next sequence number to be claimed
+    private final AtomicLong claimed = new AtomicLong();
+    // the lowest of the subscribers' sequences, as of the last time someone looked
+    private volatile long gate = 0;
+    
+    private EventSubscriber[] subscribers = new EventSubscriber[0];
+    private AtomicLong[] sequences = new AtomicLong[0];
+    private Thread[] threads = null;
+    private volatile boolean closing = false;
+    private volatile Throwable failure = null;
+    
+    // the tick that events are being published for: set between the phases of a
+    // tick, so everyone publishing sees it
+    private int tick = 0;
+    
+    /**
+     * @param capacity the number of slots in the ring: rounded up to a power of two
+     */
+    public EventBus(int capacity){
+        if(capacity < 1 || capacity > 1 << 30){
+            throw new IllegalArgumentException("A ring can't have " + capacity + " slots");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity){
+            size <<= 1;
+        }
+        slots = new SimulationEvent[size];
+        for(int i = 0; i < size; i++){
+            slots[i] = new SimulationEvent();
+        }
+        mask = size - 1;
+        published = new AtomicLongArray(size);
+        // nothing has been published yet: and sequence 0 must not look like it has
+        for(int i = 0; i < size; i++){
+            published.set(i, -1);
+        }
+    }
+    
+    /**
+     * Adds a subscriber.  This must be done before the bus is started.
+     */
+    public void subscribe(EventSubscriber subscriber){
+        if(threads != null){
+            throw new IllegalStateException("Subscribers can't join a bus that has already started");
+        }
+        int count = subscribers.length;
+        EventSubscriber[] moreSubscribers = new EventSubscriber[count + 1];
+        AtomicLong[] moreSequences = new AtomicLong[count + 1];
+        System.arraycopy(subscribers, 0, moreSubscribers, 0, count);
+        System.arraycopy(sequences, 0, moreSequences, 0, count);
+        moreSubscribers[count] = subscriber;
+        moreSequences[count] = new AtomicLong();
+        subscribers = moreSubscribers;
+        sequences = moreSequences;
+    }
+    
+    /**
+     * Starts every subscriber's thread
+     */
+    public void start(){
+        if(threads != null){
+            return;
+        }
+        threads = new Thread[subscribers.length];
+        for(int i = 0; i < threads.length; i++){
+            final int which = i;
+            threads[i] = new Thread(() -> follow(which), "event subscriber " + i);
+            // a run that blows up shouldn't leave these behind keeping the program alive
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+    
+    /**
+     * Sets the tick that events published from now on happen in.  The simulation
+     * calls this between the phases of a tick, never during them.
+     */
+    public void setTick(int tick){
+        this.tick = tick;
+    }
+    
+    /**
+     * Publishes an event to every subscriber, waiting for room in the ring if it has to
+     *
+     * @param kind what happened: one of the kinds in SimulationEvent
+     * @param truck the id of the truck it happened to, or -1
+     * @param warehouse the id of the warehouse it happened at, or -1
+     */
+    public void publish(byte kind, int truck, int warehouse, double x, double y){
+        long sequence = claimed.getAndIncrement();
+        waitForRoom(sequence);
+        SimulationEvent slot = slots[(int) sequence & mask];
+        slot.kind = kind;
+        slot.tick = tick;
+        slot.truck = truck;
+        slot.warehouse = warehouse;
+        slot.x = x;
+        slot.y = y;
+        // the subscribers see everything written above once they see this
+        published.set((int) sequence & mask, sequence);
+    }
+    
+    /**
+     * Publishes the end of the current tick
+     */
+    public void endTick(){
+        publish(SimulationEvent.TICK_END, -1, -1, 0, 0);
+    }
+    
+    /**
+     * Waits until every subscriber is done with the slot that the given sequence
+     * number goes into: that is, until they've all got past the event that was
+     * there one trip around the ring ago
+     */
+    private void waitForRoom(long sequence){
+        long wrap = sequence - slots.length;
+        if(wrap < gate){
+            return;
+        }
+        int spins = 0;
+        while(true){
+            long slowest = Long.MAX_VALUE;
+            for(AtomicLong s : sequences){
+                slowest = Math.min(slowest, s.get());
+            }
+            gate = slowest;
+            if(wrap < slowest){
+                return;
+            }
+            checkFailure();
+            spins = pause(spins);
+        }
+    }
+    
+    /**
+     * A subscriber's thread: hands it each event as soon as it has been published
+     */
+    private void follow(int which){
+        EventSubscriber subscriber = subscribers[which];
+        AtomicLong sequence = sequences[which];
+        long next = 0;
+        int spins = 0;
+        try{
+            while(true){
+                if(published.get((int) next & mask) == next){
+                    subscriber.onEvent(slots[(int) next & mask]);
+                    next++;
+                    // letting the publishers know costs a little, so we only do
+                    // it once we've caught up, or every so often if we haven't
+                    if((next & 63) == 0 || published.get((int) next & mask) != next){
+                        sequence.lazySet(next);
+                    }
+                    spins = 0;
+                }
+                else if(closing && next >= claimed.get()){
+                    break;
+                }
+                else{
+                    spins = pause(spins);
+                }
+            }
+            subscriber.onClose();
+        }
+        catch(Throwable t){
+            if(failure == null){
+                failure = t;
+            }
+        }
+        finally{
+            // whatever happened, this subscriber must never hold up the publishers again
+            sequence.set(Long.MAX_VALUE);
+        }
+    }
+    
+    /**
+     * Waits a little, for someone else to catch up: spinning at first, then
+     * sleeping for longer and longer
+     *
+     * @return the number of times we've waited in a row, including this one
+     */
+    private static int pause(int spins){
+        if(spins < 100){
+            Thread.onSpinWait();
+        }
+        else if(spins < 200){
+            Thread.yield();
+        }
+        else{
+            LockSupport.parkNanos(Math.min(1_000_000, 1_000L * (spins - 199)));
+        }
+        return spins + 1;
+    }
+    
+    /**
+     * Whether anyone is listening
+     */
+    public boolean hasSubscribers(){
+        return subscribers.length > 0;
+    }
+    
+    /**
+     * Waits for every subscriber to hear about every event, then lets them know the
+     * run is over.  No more events can be published after this.
+     *
+     * @throws Error if any subscriber failed
+     */
+    public void close(){
+        closing = true;
+        if(threads != null){
+            for(Thread t : threads){
+                try{
+                    t.join();
+                }
+                catch(InterruptedException e){
+                    throw new Error("Interrupted while waiting on the event subscribers", e);
+                }
+            }
+        }
+        checkFailure();
+    }
+    
+    /**
+     * Passes on any failure from a subscriber's thread
+     */
+    private void checkFailure(){
+        if(failure != null){
+            throw new Error("An event subscriber failed", failure);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that an EventBus gets every event to every subscriber, in order, however
+ * far behind they fall: and that a real run publishes what it should.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class EventBusTest
+{
+    /**
+     * Notes down the trucks of the events it hears about, in order
+     */
+    static class Recorder implements EventSubscriber
+    {
+        final int[] trucks;
+        int count = 0;
+        boolean closed = false;
+        final boolean slow;
+        
+        Recorder(int capacity, boolean slow){
+            trucks = new int[capacity];
+            this.slow = slow;
+        }
+        
+        public void onEvent(SimulationEvent event){
+            trucks[count++] = event.truck;
+            if(slow && count % 100 == 0){
+                Thread.yield();
+            }
+        }
+        
+        public void onClose(){
+            closed = true;
+        }
+    }
+    
+    @Test
+    public void everyoneHearsEverythingInOrder(){
+        // a tiny ring, so the publisher has to keep waiting for the slow one
+        EventBus bus = new EventBus(10);
+        Recorder fast = new Recorder(100000, false);
+        Recorder slow = new Recorder(100000, true);
+        bus.subscribe(fast);
+        bus.subscribe(slow);
+        bus.start();
+        assertThrows(IllegalStateException.class, ()-> bus.subscribe(new Recorder(1, false)));
+        for(int i = 0; i < 100000; i++){
+            bus.publish(SimulationEvent.PICKED_UP, i, 0, 0, 0);
+        }
+        bus.close();
+        for(Recorder r : new Recorder[]{fast, slow}){
+            assertTrue(r.closed);
+            assertEquals(100000, r.count);
+            for(int i = 0; i < r.count; i++){
+                assertEquals(i, r.trucks[i]);
+            }
+        }
+    }
+    
+    @Test
+    public void manyPublishersAtOnce() throws Exception{
+        EventBus bus = new EventBus(64);
+        Recorder recorder = new Recorder(4 * 20000, false);
+        bus.subscribe(recorder);
+        bus.start();
+        Thread[] publishers = new Thread[4];
+        for(int p = 0; p < publishers.length; p++){
+            final int base = p * 20000;
+            publishers[p] = new Thread(() -> {
+                for(int i = 0; i < 20000; i++){
+                    bus.publish(SimulationEvent.DOCKED, base + i, 0, 0, 0);
+                }
+            });
+            publishers[p].start();
+        }
+        for(Thread t : publishers){
+            t.join();
+        }
+        bus.close();
+        // everything comes out exactly once, and each publisher's events stay in order
+        assertEquals(4 * 20000, recorder.count);
+        boolean[] seen = new boolean[4 * 20000];
+        int[] last = {-1, -1, -1, -1};
+        for(int i = 0; i < recorder.count; i++){
+            int truck = recorder.trucks[i];
+            assertFalse(seen[truck]);
+            seen[truck] = true;
+            assertTrue(truck > last[truck / 20000]);
+            last[truck / 20000] = truck;
+        }
+    }
+    
+    @Test
+    public void failuresComeBackOut(){
+        EventBus bus = new EventBus(4);
+        bus.subscribe((SimulationEvent event) -> {
+            throw new RuntimeException("not today");
+        });
+        bus.start();
+        // the broken subscriber mustn't leave publishing stuck
+        for(int i = 0; i < 100; i++){
+            bus.publish(SimulationEvent.DOCKED, i, 0, 0, 0);
+        }
+        assertThrows(Error.class, ()-> bus.close());
+    }
+    
+    @Test
+    public void runsPublishWhatHappens(){
+        for(String engine : new String[]{"tick", "event"}){
+            // 2+2+2 trucks with 5 orders each, and no log files
+            Configuration config = new Configuration(2,2,2,3,5,1,300,300,0,"test",
+                                                     new String[]{"engine=" + engine, "loglevel=summary"});
+            Executer run = engine.equals("event") ? new EventExecuter(config, 3, null, "test")
+                                                  : new Executer(config, 3, null, "test");
+            int[] counts = new int[7];
+            int[] finished = new int[1];
+            int[] lastTick = {0};
+            run.subscribe((SimulationEvent event) -> {
+                counts[event.kind]++;
+                if(event.kind == SimulationEvent.ROUTED && event.warehouse == -1){
+                    finished[0]++;
+                }
+                // ticks only ever go forwards
+                assertTrue(event.tick >= lastTick[0]);
+                lastTick[0] = event.tick;
+            });
+            run.start();
+            assertThrows(IllegalStateException.class, ()-> run.subscribe((SimulationEvent event) -> {}));
+            // every order gets picked up and dropped off, once each
+            assertEquals(30, counts[SimulationEvent.PICKED_UP], engine);
+            assertEquals(30, counts[SimulationEvent.DROPPED_OFF], engine);
+            // and every stop starts with joining a queue, and getting a dock
+            assertEquals(60, counts[SimulationEvent.JOINED_QUEUE], engine);
+            assertEquals(60, counts[SimulationEvent.DOCKED], engine);
+            assertEquals(60, counts[SimulationEvent.ROUTED], engine);
+            assertEquals(6, finished[0], engine);
+            assertTrue(counts[SimulationEvent.TICK_END] > 0, engine);
+        }
+    }
+}
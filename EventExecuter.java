@@ -0,0 +1,268 @@
+
+/**
+ * Executes a single run, just like the Executer: but rather than stepping
+ * every truck along one tick at a time, this jumps straight from one
+ * interesting moment to the next.
+ * <p>
+ * Trucks drive in straight lines at a constant speed, so the tick a truck
+ * will arrive on can be worked out as soon as it leaves.  That arrival goes
+ * onto an EventQueue.  When it comes up, the truck joins its warehouse's
+ * queue, and the warehouse is scheduled to service its queues on the next
+ * tick, and the tick after that, for as long as it has trucks in it.  Trucks
+ * leaving a warehouse get their next arrival scheduled, and so on, until
+ * every truck is finished.  The number of events only depends on the number
+ * of orders, not on how far apart the warehouses are.
+ * <p>
+ * Ticks where nothing happens are skipped entirely, so the log only has entries
+ * for the ticks where something did: each of those lists the warehouses that
+ * were serviced and the trucks that arrived or left.  The positions of trucks
+ * out on the road are only worked out when someone is watching.
+ * <p>
+ * The final statistics match those of the Executer for the same seed.  The
+ * only exception is the rare trip whose length is within rounding error
+ * of an exact number of steps, which can arrive a tick earlier or later.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class EventExecuter extends Executer
+{
+    private final EventQueue events = new EventQueue();
+    // the log buffer we're filling this tick
+    private LogBuffer eventLog;
+    
+    // for each truck: the tick it was last placed at on its route, the tick it
+    // will arrive on, and whether it is out on the road at all
+    private int[] syncedTick;
+    private int[] arrivalTick;
+    private boolean[] inTransit;
+    // for each warehouse, the latest tick it has a service scheduled for
+    private int[] serviceTick;
+    
+    // the trucks that did something this tick, in the order they did it
+    private int[] touched;
+    private boolean[] wasTouched;
+    private int touchedCount = 0;
+    
+    // the number of trucks that still have orders to do
+    private int remaining;
+    
+    /**
+     * Constructs an executor, which will conduct a run based on the given seed
+     * and configuration.  Each logFile should be unique
+     *
+     * @param watcher the observer to notify as the run progresses, or null
+     * to run headless
+     */
+    public EventExecuter(Configuration config, long seed, RunObserver watcher, String logFileName){
+        super(config, seed, watcher, logFileName);
+    }
+    
+    /**
+     * Builds the simulation exactly as the Executer would, and then schedules
+     * the first arrival of every truck.
+     */
+    @Override
+    protected void prepareSimulation(){
+        super.prepareSimulation();
+        
+        syncedTick = new int[fleet.length];
+        arrivalTick = new int[fleet.length];
+        inTransit = new boolean[fleet.length];
+        touched = new int[fleet.length];
+        wasTouched = new boolean[fleet.length];
+        serviceTick = new int[depots.length];
+        remaining = fleet.length;
+        
+        for(int i = 0; i < depots.length; i++){
+            serviceTick[i] = -1;
+            depots[i].setReleaseListener(this::released);
+        }
+        
+        // everyone sets off on the first tick: so, they were 'placed' at tick 0
+        for(int i = 0; i < fleet.length; i++){
+            depart(i, 0);
+        }
+    }
+    
+    /**
+     * Handles every event of the next tick on which anything happens.
+     *
+     * @return false once it should be stopped
+     */
+    @Override
+    public boolean execute(){
+        if(events.isEmpty()){
+            return false;
+        }
+        ticks = EventQueue.tickOf(events.peek());
+        log.markTick(ticks);
+        if(bus != null){
+            bus.setTick(ticks);
+        }
+        eventLog = log.buffer();
+        if(binaryLog){
+            eventLog.putByte(BinaryLog.EVENT_TICK);
+            eventLog.putInt(ticks);
+        }
+        else if(textLog){
+            eventLog.append("Tick ");
+            eventLog.append(ticks);
+            eventLog.append('\n');
+        }
+        
+        // services sort ahead of arrivals, and both sort by index: so this
+        // goes in just the same order as a tick of the Executer would
+        while(!events.isEmpty() && EventQueue.tickOf(events.peek()) == ticks){
+            long event = events.pop();
+            if(EventQueue.kindOf(event) == EventQueue.SERVICE){
+                service(EventQueue.indexOf(event));
+            }
+            else{
+                arrival(EventQueue.indexOf(event));
+            }
+        }
+        
+        // now the statuses of the trucks that did anything
+        for(int i = 0; i < touchedCount; i++){
+            int dex = touched[i];
+            wasTouched[dex] = false;
+            if(binaryLog){
+                eventLog.putByte(BinaryLog.TRUCK);
+                eventLog.putInt(dex);
+                fleet[dex].encodeStatus(eventLog);
+            }
+            else if(textLog && runConfig.logsTruck(dex)){
+                eventLog.append("Truck ");
+                eventLog.append(dex);
+                eventLog.append(": ");
+                fleet[dex].appendStatus(eventLog);
+                eventLog.append('\n');
+            }
+            else{
+                // nobody wants to hear about this one
+                fleet[dex].forgetEvents();
+            }
+        }
+        touchedCount = 0;
+        if(binaryLog){
+            eventLog.putByte(BinaryLog.END);
+        }
+        if(bus != null){
+            bus.endTick();
+        }
+        
+        // update the window, if there is one: it is the only thing that
+        // cares where the trucks on the road actually are
+        if(observer != null){
+            placeTrucksInTransit();
+            observer.tickComplete();
+        }
+        
+        log.endOfTick();
+        
+        return remaining > 0;
+    }
+    
+    /**
+     * A warehouse services its queues, just as it would in a tick; if it still has
+     * trucks in it afterwards, it does so again next tick.
+     */
+    private void service(int warehouseDex){
+        Warehouse target = depots[warehouseDex];
+        target.action();
+        if(binaryLog){
+            eventLog.putByte(BinaryLog.WAREHOUSE);
+            eventLog.putInt(warehouseDex);
+            target.encodeStatus(eventLog);
+        }
+        else if(textLog){
+            eventLog.append("Warehouse ");
+            eventLog.append(warehouseDex);
+            eventLog.append(": ");
+            target.appendStatus(eventLog);
+            eventLog.append('\n');
+        }
+        if(target.isBusy()){
+            scheduleService(warehouseDex, ticks + 1);
+        }
+    }
+    
+    /**
+     * A truck arrives at its destination, and joins the queue there.
+     */
+    private void arrival(int truckDex){
+        Truck truck = fleet[truckDex];
+        Warehouse destination = truck.getDestination();
+        truck.arrive(arrivalTick[truckDex] - syncedTick[truckDex]);
+        truck.joinDestinationQueue();
+        inTransit[truckDex] = false;
+        touch(truckDex);
+        // it'll get pulled out of the entry queue next tick, if there's room
+        scheduleService(destination.id, ticks + 1);
+    }
+    
+    /**
+     * Told about every truck leaving a warehouse: it's either done, or off
+     * to its next stop.
+     */
+    private void released(Truck truck){
+        int truckDex = truck.getId();
+        touch(truckDex);
+        if(truck.isComplete()){
+            remaining--;
+        }
+        else{
+            // it takes its first step on this very tick: so it starts from where it
+            // was at the end of the last one
+            depart(truckDex, ticks - 1);
+        }
+    }
+    
+    /**
+     * Sends a truck off towards its destination, scheduling its arrival
+     *
+     * @param truckDex the truck that is leaving
+     * @param fromTick the last tick on which the truck was still at its starting point
+     */
+    private void depart(int truckDex, int fromTick){
+        syncedTick[truckDex] = fromTick;
+        arrivalTick[truckDex] = fromTick + fleet[truckDex].ticksToArrive();
+        inTransit[truckDex] = true;
+        events.schedule(arrivalTick[truckDex], EventQueue.ARRIVAL, truckDex);
+    }
+    
+    /**
+     * Schedules a warehouse to service its queues, unless it already will be
+     */
+    private void scheduleService(int warehouseDex, int tick){
+        if(serviceTick[warehouseDex] != tick){
+            serviceTick[warehouseDex] = tick;
+            events.schedule(tick, EventQueue.SERVICE, warehouseDex);
+        }
+    }
+    
+    /**
+     * Notes that a truck did something this tick, so its status gets logged
+     */
+    private void touch(int truckDex){
+        if(!wasTouched[truckDex]){
+            wasTouched[truckDex] = true;
+            touched[touchedCount++] = truckDex;
+        }
+    }
+    
+    /**
+     * Brings every truck that is out on the road up to where it would be
+     * at the current tick, so that it can be drawn in the right place.
+     */
+    private void placeTrucksInTransit(){
+        for(int i = 0; i < fleet.length; i++){
+            // the arrival itself will put it the rest of the way there
+            if(inTransit[i] && arrivalTick[i] > ticks){
+                fleet[i].advance(ticks - syncedTick[i]);
+                syncedTick[i] = ticks;
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+
+/**
+ * A priority queue of simulation events, for the EventExecuter.
+ * <p>
+ * Each event is packed into a single long: the tick it happens on in the top
+ * half, then the kind of event, then the index of the truck or warehouse it
+ * happens to.  That means the natural ordering of the longs is exactly the
+ * order events need to be handled in: earliest tick first, then by kind,
+ * then by index.  It also means that scheduling an event doesn't allocate
+ * anything, which matters when there are millions of them.
+ * <p>
+ * Internally, this is a binary min-heap stored in a growable array.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class EventQueue
+{
+    /**
+     * A warehouse services its queues.  These happen before arrivals on
+     * the same tick, just like warehouses act before trucks do in a tick.
+     */
+    public static final int SERVICE = 0;
+    
+    /**
+     * A truck arrives at its destination
+     */
+    public static final int ARRIVAL = 1;
+    
+    private long[] heap = new long[16];
+    private int len = 0;
+    
+    /**
+     * Adds an event to the queue
+     *
+     * @param tick the tick on which the event happens
+     * @param kind what sort of event it is: SERVICE or ARRIVAL
+     * @param index the index of the warehouse or truck that the event is for
+     */
+    public void schedule(int tick, int kind, int index){
+        if(len == heap.length){
+            long[] bigger = new long[heap.length * 2];
+            System.arraycopy(heap, 0, bigger, 0, len);
+            heap = bigger;
+        }
+        // sift the new event up from the bottom, until its parent is smaller
+        long event = encode(tick, kind, index);
+        int dex = len;
+        while(dex > 0){
+            int parent = (dex - 1) / 2;
+            if(heap[parent] <= event){
+                break;
+            }
+            heap[dex] = heap[parent];
+            dex = parent;
+        }
+        heap[dex] = event;
+        len++;
+    }
+    
+    /**
+     * Removes the earliest event from the queue
+     *
+     * @return the earliest event, in its packed form: take it apart
+     * with tickOf(), kindOf() and indexOf()
+     * @throws IndexOutOfBoundsException if the queue is empty
+     */
+    public long pop(){
+        long retval = peek();
+        len--;
+        // sift the last event down from the top, until both its children are bigger
+        long event = heap[len];
+        int dex = 0;
+        while(true){
+            int child = dex * 2 + 1;
+            if(child >= len){
+                break;
+            }
+            // pick the smaller of the two children
+            if(child + 1 < len && heap[child + 1] < heap[child]){
+                child++;
+            }
+            if(event <= heap[child]){
+                break;
+            }
+            heap[dex] = heap[child];
+            dex = child;
+        }
+        heap[dex] = event;
+        return retval;
+    }
+    
+    /**
+     * Gets the earliest event in the queue, without removing it
+     *
+     * @return the earliest event, in its packed form
+     * @throws IndexOutOfBoundsException if the queue is empty
+     */
+    public long peek(){
+        if(len == 0){
+            throw new IndexOutOfBoundsException("No events are left in the queue");
+        }
+        return heap[0];
+    }
+    
+    /**
+     * Gets the number of events waiting in the queue
+     */
+    public int size(){
+        return len;
+    }
+    
+    /**
+     * States whether or not there are any events left
+     */
+    public boolean isEmpty(){
+        return len == 0;
+    }
+    
+    /**
+     * Packs an event into a long.  Ticks and indices must not be negative.
+     */
+    public static long encode(int tick, int kind, int index){
+        return ((long) tick << 32) | ((long) kind << 31) | index;
+    }
+    
+    /**
+     * Gets the tick that a packed event happens on
+     */
+    public static int tickOf(long event){
+        return (int) (event >>> 32);
+    }
+    
+    /**
+     * Gets the kind of a packed event
+     */
+    public static int kindOf(long event){
+        return (int) (event >>> 31) & 1;
+    }
+    
+    /**
+     * Gets the index of the truck or warehouse that a packed event is for
+     */
+    public static int indexOf(long event){
+        return (int) (event & Integer.MAX_VALUE);
+    }
+}
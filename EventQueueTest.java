@@ -0,0 +1,80 @@
+
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Tests the EventQueue: mostly, that things come out of it in the right order.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class EventQueueTest
+{
+    EventQueue queue;
+    
+    @BeforeEach
+    public void setUp()
+    {
+        queue = new EventQueue();
+    }
+    
+    @Test
+    public void testPacking(){
+        long event = EventQueue.encode(123456, EventQueue.ARRIVAL, 789);
+        assertEquals(123456, EventQueue.tickOf(event));
+        assertEquals(EventQueue.ARRIVAL, EventQueue.kindOf(event));
+        assertEquals(789, EventQueue.indexOf(event));
+        
+        // and with everything as big as it goes
+        event = EventQueue.encode(Integer.MAX_VALUE, EventQueue.SERVICE, Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, EventQueue.tickOf(event));
+        assertEquals(EventQueue.SERVICE, EventQueue.kindOf(event));
+        assertEquals(Integer.MAX_VALUE, EventQueue.indexOf(event));
+    }
+    
+    @Test
+    public void testOrdering(){
+        // later ticks come out later, whatever order they go in
+        queue.schedule(5, EventQueue.ARRIVAL, 0);
+        queue.schedule(2, EventQueue.ARRIVAL, 3);
+        // on the same tick, services go before arrivals
+        queue.schedule(2, EventQueue.SERVICE, 9);
+        // and then by index
+        queue.schedule(2, EventQueue.ARRIVAL, 1);
+        
+        long event = queue.pop();
+        assertEquals(2, EventQueue.tickOf(event));
+        assertEquals(EventQueue.SERVICE, EventQueue.kindOf(event));
+        assertEquals(9, EventQueue.indexOf(event));
+        
+        assertEquals(1, EventQueue.indexOf(queue.pop()));
+        assertEquals(3, EventQueue.indexOf(queue.pop()));
+        assertEquals(5, EventQueue.tickOf(queue.pop()));
+        assertTrue(queue.isEmpty());
+        
+        assertThrows(IndexOutOfBoundsException.class, ()->queue.pop());
+        assertThrows(IndexOutOfBoundsException.class, ()->queue.peek());
+    }
+    
+    @Test
+    public void testLotsOfEvents(){
+        // enough to make the queue grow a few times over
+        Random rand = new Random(42);
+        for(int i = 0; i < 5000; i++){
+            queue.schedule(rand.nextInt(1000), rand.nextInt(2), rand.nextInt(100));
+        }
+        assertEquals(5000, queue.size());
+        
+        long last = Long.MIN_VALUE;
+        while(!queue.isEmpty()){
+            long event = queue.pop();
+            assertTrue(event >= last);
+            last = event;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+
+/**
+ * Something that wants to hear about everything that happens in a run, as it
+ * happens: see EventBus.  Every subscriber gets a thread of its own, so it
+ * can take its time without holding up the simulation (at least, until it
+ * falls a whole ring's worth of events behind).
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public interface EventSubscriber {
+    /**
+     * Called for every event, in the order they were published, on this
+     * subscriber's own thread.  The event is only good until this returns.
+     */
+    public void onEvent(SimulationEvent event);
+    
+    /**
+     * Called once the run is over, after the last event
+     */
+    public default void onClose(){
+    }
+}
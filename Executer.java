@@ -1,11 +1,12 @@
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.Random;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
-import java.io.FileWriter;
 import java.io.File;
 
-import javax.swing.JFrame;
-
 import java.lang.reflect.Constructor;
 
 /**
@@ -14,43 +15,156 @@ import java.lang.reflect.Constructor;
  * 
  * This object is immutable once constructed, though some
  * of its members are mutable.
+ * <p>
+ * Graphics are optional: give it a RunObserver (like a WindowRenderer) to
+ * watch the run, or null to run headless.  A headless run never loads any
+ * of the Swing classes, and ignores the stepGapNanos pacing entirely, since
+ * there is nobody around to enjoy the show.
  *
  * @author Calum McConnell
  * @version 0.0.1
  */
 public class Executer
 {
-    private final DoublyLinkedList<Truck> trucks = new DoublyLinkedList<Truck>();
-    private final DoublyLinkedList<Warehouse> warehouses = new DoublyLinkedList<Warehouse>();
-    private final Configuration runConfig;
+    protected final DoublyLinkedList<Truck> trucks = new DoublyLinkedList<Truck>();
+    protected final DoublyLinkedList<Warehouse> warehouses = new DoublyLinkedList<Warehouse>();
+    protected final Configuration runConfig;
     private final Random randGen;
-    private final JFrame window;
-    private int ticks = 0;
+    // null when we are running headless
+    protected final RunObserver observer;
+    protected int ticks = 0;
     /** total number of nanoseconds spent sleeping:**/
     private long sleepTime = 0;
     /** total number of nanoseconds spent executing **/
     private long executionTime = 0;
     private long initialStartTime;
-    private final StringBuilder status = new StringBuilder();
     
-    private final FileWriter logFileWriter;
+    /**
+     * Fleets with at least this many trucks have each tick split up across
+     * all the cores of the machine.
+     */
+    public static final int parallelThreshold = 4096;
+    
+    // Array copies of the lists, plus somewhere to put each object's results for the tick.
+    // Indexing into these is what lets the phases of a tick be handed out to many threads.
+    protected Truck[] fleet;
+    protected Warehouse[] depots;
+    // where every truck is and where it's going, in one set of arrays: see FleetState
+    protected FleetState fleetState;
+    // and every order of every truck, likewise
+    protected OrderTable orders;
+    // for loglevel=events: which trucks had something to say since they were last
+    // logged, and the queue lengths each warehouse was last logged with
+    private boolean[] eventful;
+    private int[] loggedEntering;
+    private int[] loggedLeaving;
+    
+    // Only the trucks out on the road need anything done with them each tick.  Those
+    // are kept here, by index, in order: arrived[] says which of them arrived this tick.
+    // Trucks waiting in a warehouse come back through released[] when they leave, and
+    // finished trucks never come back at all.
+    private int[] moving;
+    private int movingCount;
+    private int[] mergeSpace;
+    private boolean[] arrived;
+    private int[] released;
+    private final AtomicInteger releasedCount = new AtomicInteger();
+    // trucks that arrived last tick: their status needs one more update
+    private int[] justArrived;
+    private int justArrivedCount = 0;
+    private int finishedCount = 0;
+    
+    // writes the log file on a thread of its own: see LogWriter
+    protected final LogWriter log;
+    // whether that log is a BinaryLog, or plain text: or neither, with loglevel=summary
+    protected final boolean binaryLog;
+    protected final boolean textLog;
+    protected final boolean summaryLog;
+    // for text logs that leave things out: whether this tick is one that gets
+    // logged, and where its entry (and the part after its header) started
+    private boolean sampledTick = true;
+    private int tickStart;
+    private int tickBodyStart;
+    // writes a delta log, if that's what the log is meant to be: see DeltaLog
+    private DeltaLog deltaLog = null;
+    
+    /**
+     * The number of events the EventBus can hold before publishing has to wait
+     * for the subscribers to catch up
+     */
+    public static final int eventRingSize = 1 << 14;
+    // whoever wants to hear about the run as it happens, and the bus that tells
+    // them: which only exists if there is someone
+    private final DeQueue<EventSubscriber> subscribers = new DeQueue<EventSubscriber>();
+    protected EventBus bus = null;
+    
+    // the phases of a tick: built once, so we don't make new lambdas every tick
+    private final IntConsumer warehousePhase = (int i) -> {
+        depots[i].action();
+    };
+    private final IntConsumer movePhase = (int i) -> {
+        Truck t = fleet[moving[i]];
+        arrived[i] = t.move();
+    };
+    // the number of ticks the current fast-forward is skipping
+    private int skipTicks = 0;
+    private final IntConsumer skipPhase = (int i) -> {
+        fleet[moving[i]].advance(skipTicks);
+    };
     
     /**
      * Constructs an executor, which will conduct a run based on the given seed
      * and configuration.  Each logFile should be unique
+     * 
+     * @param watcher the observer to notify as the run progresses, or null
+     * to run headless
      */
-    public Executer(Configuration config, long seed, JFrame graphics, String logFileName){
+    public Executer(Configuration config, long seed, RunObserver watcher, String logFileName){
         randGen = new Random(seed);
         runConfig = config;
-        window = graphics;
-        try{
-            File logFileFile = new File("output:"+logFileName);
-            logFileFile.delete();
-            logFileWriter = new FileWriter(logFileFile);
+        observer = watcher;
+        log = openLog(config, logFileName);
+        summaryLog = config.logLevel.equals("summary");
+        binaryLog = config.logFormat.equals("binary") && !summaryLog;
+        textLog = config.logFormat.equals("text") && !summaryLog;
+    }
+    
+    /**
+     * Adds something to be told about everything that happens in the run, on a
+     * thread of its own: see EventBus.  This must be done before the run starts.
+     */
+    public void subscribe(EventSubscriber subscriber){
+        if(fleet != null){
+            throw new IllegalStateException("The run has already started");
+        }
+        subscribers.add(subscriber);
+    }
+    
+    /**
+     * Picks the log a run writes to: none at all, if it only wants the summary
+     */
+    private static LogWriter openLog(Configuration config, String logFileName){
+        if(config.logLevel.equals("summary")){
+            return new LogWriter();
+        }
+        if(config.mappedLog){
+            return new LogWriter(new File("output:"+logFileName), config.segmentBytes);
+        }
+        return new LogWriter(new File("output:"+logFileName+Compression.suffix(config.compression)),
+                             config.compression, config.compressionLevel);
+    }
+    
+    /**
+     * Deals with a truck's arrival on a tick that didn't get logged.  A summary
+     * just forgets it; with loglevel=events, the truck counts as having done
+     * something, even if it leaves again before the next logged tick.
+     */
+    private void noteArrival(int truckDex){
+        if(summaryLog){
+            fleet[truckDex].forgetEvents();
         }
-        catch(Exception e){
-            // throw an exception casued by another exception
-            throw new Error("failed to open logging file",e);
+        else if(fleet[truckDex].hasEvents()){
+            eventful[truckDex] = true;
         }
     }
     
@@ -62,66 +176,333 @@ public class Executer
      * @return false once it should be stopped
      */
     public boolean execute(){
+        // big fleets get their phases split up across all the cores; small ones
+        // would just spend their time waiting on the thread handoffs
+        boolean parallel = fleet.length >= parallelThreshold;
+        // whatever we log from here on is for the next tick (or a fast-forward starting on it)
+        log.markTick(ticks + 1);
+        
+        // if nothing is going to happen for a while, skip straight past it
+        if(runConfig.fastForward && observer == null){
+            int idle = idleTicksAhead();
+            if(idle > 0){
+                fastForward(idle, parallel);
+                if(bus != null){
+                    bus.setTick(ticks);
+                    bus.endTick();
+                }
+                return true;
+            }
+        }
+        
         // Increase the central clock by one hour
         ticks++;
+        if(bus != null){
+            bus.setTick(ticks);
+        }
         
-        // Now iterate through the warehouse and truck lists, executing each one, and logging it's success
-        // Order doesn't matter; we have seperate lists for Trucks and Warehouses, but we don't need to.
-        DoublyLinkedList<String> warehouseStatuses = warehouses.applyFunctionToList((Warehouse t)->{
-            t.action();
-            return t.status();
-        });
+        // Now iterate through the warehouse and truck lists, executing each one, and logging it's success.
+        // Warehouses go first: each one only ever touches the trucks in its own queues,
+        // so they can all be serviced at the same time.
+        runPhase(depots.length, parallel, warehousePhase);
+        if(binaryLog){
+            // the warehouses get logged as they are now, before anyone new joins their queues
+            LogBuffer out = log.buffer();
+            out.putByte(BinaryLog.TICK);
+            out.putInt(ticks);
+            for(int i = 0; i < depots.length; i++){
+                depots[i].encodeStatus(out);
+            }
+        }
+        else if(deltaLog != null){
+            deltaLog.startTick(log.buffer(), ticks);
+        }
+        else if(textLog){
+            // likewise for text: the warehouses go straight into the log
+            sampledTick = ticks % runConfig.logEvery == 0;
+            if(sampledTick){
+                logWarehouses(log.buffer());
+            }
+        }
         
+        // The trucks that arrived last tick are still sitting in the entry queues.  They
+        // hang on to the arrival until the next logged tick, unless they've left by then:
+        // see Truck.loadingComplete()
+        if(summaryLog || (textLog && !sampledTick)){
+            for(int i = 0; i < justArrivedCount; i++){
+                noteArrival(justArrived[i]);
+            }
+        }
+        justArrivedCount = 0;
         
-        // The results of this list say how many trucks are finished.
-        // I could (and might) modify this to be the number of orders each have done, and get
-        // a progress bar: but that's a job for later
-        DoublyLinkedList<String> truckStatuses = trucks.applyFunctionToList((Truck t) ->{
-            t .action();
-            return t.status();
-        });
+        // anyone who just left a warehouse gets back on the road
+        mergeReleased();
         
-        // update the window
-        window.repaint();
+        // Moving is purely per-truck, so that can all happen at once too...
+        runPhase(movingCount, parallel, movePhase);
         
-        // dump the status's into the file
-        try{
-            // we use the same StringBuilder tricks as in Truck/Warehous.status(): otherwise
-            // Java will repeatedly allocate different arrays for each string as it builds them
-            for(int i = 0; i < warehouseStatuses.size(); i++){
-                status.append("Warehouse ");
-                status.append(i);
-                status.append(": ");
-                status.append(warehouseStatuses.fakePop());
-                // trailing newline
-                status.append("\n");
+        // ...but joining a warehouse queue isn't.  The order trucks join in decides the
+        // order they get served, so we do it one at a time, in the same order the trucks
+        // would have moved in if we'd done everything on a single thread.  The trucks
+        // that arrived come off the road while we're at it.
+        int stillMoving = 0;
+        for(int i = 0; i < movingCount; i++){
+            if(arrived[i]){
+                fleet[moving[i]].joinDestinationQueue();
+                justArrived[justArrivedCount++] = moving[i];
             }
-            for(int i = 0; i < truckStatuses.size(); i++){
-                status.append("Truck ");
-                status.append(i);
-                status.append(": ");
-                status.append(truckStatuses.fakePop());
-                status.append("\n");
+            else{
+                moving[stillMoving++] = moving[i];
             }
-            // we only do one write, because this method is slowwww:
-            // it ate up half my execution time when I tried a run with it in the inner loops
-            logFileWriter.write(status.toString());
-            status.setLength(0);
         }
-        catch(Exception e){
-            throw new Error("Failed to write logs",e);
+        movingCount = stillMoving;
+        if(bus != null){
+            bus.endTick();
         }
         
-        // check if done: no way to do this but through good ol' iteration
-        trucks.resetFakeQueue();
-        for(int i = 0; i < trucks.size(); i++){
-            if(!trucks.fakePop().isComplete()){
-                return true;
+        // update the window, if there is one
+        if(observer != null){
+            observer.tickComplete();
+        }
+        
+        // dump the status's into the log.  Writing to the file used to eat up half my
+        // execution time when I tried a run with it in the inner loops: now it happens
+        // on the LogWriter's own thread, and all we do here is fill up its buffer
+        LogBuffer status = log.buffer();
+        if(binaryLog){
+            // the rest of this tick's TICK record: see BinaryLog
+            for(int i = 0; i < fleet.length; i++){
+                fleet[i].encodeStatus(status);
             }
+            log.endOfTick();
+            return finishedCount < fleet.length;
         }
-        trucks.resetFakeQueue();
+        if(deltaLog != null){
+            deltaLog.finishTick(status);
+            log.endOfTick();
+            return finishedCount < fleet.length;
+        }
+        if(textLog && sampledTick){
+            logTrucks(status);
+            log.endOfTick();
+        }
+        
+        // check if done: we've kept count, so no need to go looking
+        return finishedCount < fleet.length;
+    }
+    
+    /**
+     * Starts a tick's entry in a text log, with the warehouses.  Logs that leave
+     * things out say which tick each entry is for, since it isn't always the next one.
+     */
+    private void logWarehouses(LogBuffer out){
+        tickStart = out.size();
+        if(!runConfig.logsEverything()){
+            out.append("Tick ");
+            out.append(ticks);
+            out.append('\n');
+        }
+        tickBodyStart = out.size();
+        boolean eventsOnly = runConfig.logLevel.equals("events");
+        for(int i = 0; i < depots.length; i++){
+            if(eventsOnly){
+                // just the ones whose queues changed
+                int entering = depots[i].getEnteringCount();
+                int leaving = depots[i].getLeavingCount();
+                if(entering == loggedEntering[i] && leaving == loggedLeaving[i]){
+                    continue;
+                }
+                loggedEntering[i] = entering;
+                loggedLeaving[i] = leaving;
+            }
+            out.append("Warehouse ");
+            out.append(i);
+            out.append(": ");
+            depots[i].appendStatus(out);
+            // trailing newline
+            out.append('\n');
+        }
+    }
+    
+    /**
+     * Finishes a tick's entry in a text log, with the trucks.  With loglevel=events,
+     * an entry with nothing in it is taken back out again.
+     * <p>
+     * Every truck says where it is from the FleetState, straight into the log: the
+     * ones sitting in a warehouse just say the same thing they did last time.
+     */
+    private void logTrucks(LogBuffer out){
+        boolean eventsOnly = runConfig.logLevel.equals("events");
+        for(int i = 0; i < fleet.length; i++){
+            if(!runConfig.logsTruck(i)){
+                // so that the things it did don't pile up forever
+                fleet[i].forgetEvents();
+                continue;
+            }
+            if(fleet[i].hasEvents()){
+                eventful[i] = true;
+            }
+            if(eventsOnly && !eventful[i]){
+                continue;
+            }
+            eventful[i] = false;
+            out.append("Truck ");
+            out.append(i);
+            out.append(": ");
+            fleet[i].appendStatus(out);
+            out.append('\n');
+        }
+        if(eventsOnly && out.size() == tickBodyStart){
+            // just the header: take it back out
+            out.truncate(tickStart);
+        }
+    }
+    
+    /**
+     * Told about every truck leaving a warehouse.  This can happen from many
+     * threads at once, when the warehouses are being serviced in parallel.
+     */
+    private void released(Truck truck){
+        released[releasedCount.getAndIncrement()] = truck.getId();
+    }
+    
+    /**
+     * Puts the trucks that left a warehouse this tick back on the road, or marks
+     * them finished.  The list of moving trucks stays in order by index, so that
+     * they still join queues in the order they always have.
+     */
+    private void mergeReleased(){
+        int count = releasedCount.getAndSet(0);
+        if(count == 0){
+            return;
+        }
+        // parallel warehouses hand them to us in no particular order
+        Arrays.sort(released, 0, count);
+        
+        // a standard merge, of two sorted lists into a third
+        int merged = 0;
+        int fromMoving = 0;
+        for(int i = 0; i < count; i++){
+            int truckDex = released[i];
+            if(summaryLog){
+                // nobody reads what the trucks did in a summary: the arrival went
+                // the tick after it happened, and this is where the loading goes
+                fleet[truckDex].forgetEvents();
+            }
+            if(fleet[truckDex].isComplete()){
+                finishedCount++;
+                // a finished truck has no status in a text log, so its last drop-off
+                // never gets mentioned there
+                if(textLog){
+                    fleet[truckDex].forgetEvents();
+                }
+                continue;
+            }
+            while(fromMoving < movingCount && moving[fromMoving] < truckDex){
+                mergeSpace[merged++] = moving[fromMoving++];
+            }
+            mergeSpace[merged++] = truckDex;
+        }
+        while(fromMoving < movingCount){
+            mergeSpace[merged++] = moving[fromMoving++];
+        }
+        
+        // the merged list becomes the new one, and the old one is the space for next time
+        int[] tmp = moving;
+        moving = mergeSpace;
+        mergeSpace = tmp;
+        movingCount = merged;
+    }
+    
+    /**
+     * Works out how many of the upcoming ticks are certain to be nothing but driving:
+     * every warehouse is empty, and no truck will arrive anywhere.
+     * <p>
+     * Trucks are only ever paused inside of a warehouse or once they're done, so
+     * empty warehouses mean that every truck with work left is on the road.  From
+     * there, it's just a matter of who gets where first.  We hold back one tick
+     * from that, so that a trip that comes out a tick short due to rounding still
+     * gets its arrival handled by a normal tick.
+     * 
+     * @return the number of ticks that can be skipped: 0 if we can't skip any
+     */
+    private int idleTicksAhead(){
+        for(int i = 0; i < depots.length; i++){
+            if(depots[i].isBusy()){
+                return 0;
+            }
+        }
+        int soonestArrival = Integer.MAX_VALUE;
+        for(int i = 0; i < movingCount; i++){
+            soonestArrival = Math.min(soonestArrival, fleet[moving[i]].ticksToArrive());
+        }
+        // the arrival tick itself isn't idle, and neither is our safety margin
+        return Math.max(0, soonestArrival - 2);
+    }
+    
+    /**
+     * Jumps the clock forward by the given number of ticks, moving every truck
+     * along as it goes, and logs the whole stretch as a single line.  Nothing may
+     * arrive during those ticks: see idleTicksAhead().
+     * 
+     * @param idle the number of ticks to skip
+     * @param parallel whether to split the work up across cores
+     */
+    private void fastForward(int idle, boolean parallel){
+        skipTicks = idle;
+        runPhase(movingCount, parallel, skipPhase);
         
-        return false;
+        LogBuffer status = log.buffer();
+        if(binaryLog){
+            status.putByte(BinaryLog.SKIP);
+            status.putInt(ticks + 1);
+            status.putInt(ticks + idle);
+            status.putInt(movingCount);
+            ticks += idle;
+            log.endOfTick();
+            return;
+        }
+        if(deltaLog != null){
+            // nothing to write: the next tick's record sorts out where everyone got to
+            ticks += idle;
+            return;
+        }
+        // a log that leaves things out only mentions the stretch if it has a tick
+        // that would have been logged; and nothing changes, as far as loglevel=events cares
+        if(summaryLog || runConfig.logLevel.equals("events")
+           || (ticks + idle) / runConfig.logEvery == ticks / runConfig.logEvery){
+            ticks += idle;
+            return;
+        }
+        status.append("Ticks ");
+        status.append(ticks + 1);
+        status.append('-');
+        status.append(ticks + idle);
+        status.append(": ");
+        status.append(movingCount);
+        status.append(" Trucks on the road, all warehouses empty\n");
+        ticks += idle;
+        log.endOfTick();
+    }
+    
+    /**
+     * Runs one phase of a tick over every index from 0 to count-1.  In parallel,
+     * this goes out to the fork-join pool; each index must then only touch
+     * its own object (and its own slot in the status arrays).
+     * 
+     * @param count the number of objects in the phase
+     * @param parallel whether to split the work up across cores
+     * @param phase the work to do for each index
+     */
+    private static void runPhase(int count, boolean parallel, IntConsumer phase){
+        if(parallel){
+            IntStream.range(0, count).parallel().forEach(phase);
+        }
+        else{
+            for(int i = 0; i < count; i++){
+                phase.accept(i);
+            }
+        }
     }
     
     /**
@@ -129,16 +510,54 @@ public class Executer
      * It will call preprare(), unless prepare() has already been called
      * 
      * This will run execute() repeatedly, until all trucks
-     * are finished.  It (may) slow things down a bit, for your
-     * viewing pleasure
+     * are finished.  If someone is watching, it slows things down
+     * a bit, for their viewing pleasure
      * 
      * @return a string describing the overall metrics of this run
      */
     public String start(){
         initialStartTime = System.nanoTime();
-        prepareSimulation();
-        prepareGraphics(); 
-        
+        // whatever happens, the log file gets finished off and closed
+        try{
+            prepareSimulation();
+            if(observer == null){
+                runHeadless();
+            }
+            else{
+                observer.prepare(runConfig, trucks, warehouses);
+                runPaced();
+            }
+        }
+        finally{
+            try{
+                log.close();
+            }
+            finally{
+                if(bus != null){
+                    bus.close();
+                }
+            }
+        }
+        String stats = getFinalStats();
+        System.out.println(stats);
+        return getFinalStats();
+    }
+    
+    /**
+     * Runs execute() until it is done, as fast as it can.  Nobody is watching,
+     * so there is no reason to pace ourselves.
+     */
+    private void runHeadless(){
+        long timeStart = System.nanoTime();
+        while(execute());
+        executionTime += System.nanoTime() - timeStart;
+    }
+    
+    /**
+     * Runs execute() until it is done, sleeping between ticks so that the
+     * run can be watched.
+     */
+    private void runPaced(){
         // We want to run untill execute() returns false.  But to make the graphics understandable,
         // we don't want tu run too often.  This starts one tick every timeDelta (class variable) miliseconds,
         // counting from when the last tick started.  Thus, most noise in the execution time of execute()
@@ -162,9 +581,6 @@ public class Executer
             }
             timeStart = System.nanoTime();
         }
-        String stats = getFinalStats();
-        System.out.println(stats);
-        return getFinalStats();
     }
     
     public String getFinalStats(){
@@ -176,44 +592,48 @@ public class Executer
         stats.append(", ticks evaluated, "+ ticks);
         
         
-        long routerTime = 0;
-        double filledCargoUnitTimes = 0;
         long availableCargoUnits = 0;
         
         availableCargoUnits += runConfig.numSmallTrucks  * 1;
         availableCargoUnits += runConfig.numMediumTrucks * 2;
         availableCargoUnits += runConfig.numLargeTrucks  * 3;
         
-        trucks.resetFakeQueue();
-        for(int i = 0; i< trucks.size(); i++){
-            Truck t = trucks.fakePop();
-            routerTime += t.routingTime();
-            filledCargoUnitTimes += t.cargoFilledTime();
-        }
+        long routerTime = trucks.foldLong(0, (long total, Truck t) -> total + t.routingTime());
+        double filledCargoUnitTimes = trucks.foldDouble(0, (double total, Truck t) -> total + t.cargoFilledTime());
         
         stats.append(", time spent routing, "+ routerTime);
         double percentCargoFullTime = filledCargoUnitTimes/(availableCargoUnits*ticks); 
         stats.append(", cargo fill percent, " + percentCargoFullTime);
         return stats.toString();
     }
-
+    
     /**
      * This does the groundwork: generating all the objects needed
      * for the simulation to work
      */
-    private void prepareSimulation(){              
+    protected void prepareSimulation(){              
         // this generates our manifests. we define this before we can
         // actually invoke it, 
-                
+        
         // now, lets build the warehouses
         // we need to do this before the trucks can be made
         for(int i = 0; i < runConfig.numWarehouses; i++){
             // generate from 1-3, inclusive
             int dockCount = randGen.nextInt(3)+1;
-            Warehouse toAdd = new Warehouse(generatePoint(),dockCount);
+            Warehouse toAdd = new Warehouse(generatePoint(),dockCount,i,runConfig.arrayQueues);
             warehouses.add(toAdd);
         }
-
+        depots = new Warehouse[warehouses.size()];
+        warehouses.resetFakeQueue();
+        for(int i = 0; i < depots.length; i++){
+            depots[i] = warehouses.fakePop();
+            depots[i].setReleaseListener(this::released);
+        }
+        
+        // the orders all go in one big table, which the manifests point into
+        int truckCount = runConfig.numSmallTrucks + runConfig.numMediumTrucks + runConfig.numLargeTrucks;
+        orders = new OrderTable(depots, Math.multiplyExact(truckCount, runConfig.numOrdersPerTruck),
+                                runConfig.offHeap);
         
         // now for the small trucks!
         for(int i = 0; i < runConfig.numSmallTrucks; i ++){
@@ -232,33 +652,49 @@ public class Executer
             Truck truck = new LargeTruck(generateManifest(), runConfig.routerClass,generatePoint());
             trucks.add(truck);
         }
-    }
-    
-    /**
-     * This handles preparing for the graphics rendering.
-     * Rather than having a list of Render objects, I instead made the
-     * Graphics and Warehouse objects extend JComponent.  I think that is
-     * the most elegant way to make them all be displayable on-screen.
-     * While I'm not sure that's what you intended us to do, it is the way
-     * that is most readily adapted to the technique presented in the book.
-     * NOTE THIS IN FINAL REPORT
-     */
-    private void prepareGraphics(){
-        // lets get our scale factors: this is based on my screen,
-        // a 1366x768 laptop monitor.  We want it to fit without going fullscreen:
-        // so there is a gap to the top and bottom.
-        double scaleFactorY = 650.0 / runConfig.canvasHeight;
-        double scaleFactorX = 1300.0 / runConfig.canvasWidth;
         
-        SimulationImage comp = new SimulationImage(Math.min(scaleFactorX,scaleFactorY));
-        // add all the trucks and warehouses to the JFrame
-        trucks.applyFunctionToList( (Truck t) -> {comp.add(t); return null;});
-        warehouses.applyFunctionToList( (Warehouse t) -> {comp.add(t); return null;});
-        // clear out the previous execution
-        window.getContentPane().removeAll();
+        // lastly, set up the arrays that the ticks work from
+        fleet = new Truck[trucks.size()];
+        eventful = new boolean[trucks.size()];
+        loggedEntering = new int[depots.length];
+        loggedLeaving = new int[depots.length];
+        arrived = new boolean[trucks.size()];
+        released = new int[trucks.size()];
+        justArrived = new int[trucks.size()];
+        mergeSpace = new int[trucks.size()];
+        // everyone starts out on the road
+        moving = new int[trucks.size()];
+        movingCount = fleet.length;
+        fleetState = new FleetState(trucks.size(), runConfig.offHeap);
+        trucks.resetFakeQueue();
+        for(int i = 0; i < fleet.length; i++){
+            fleet[i] = trucks.fakePop();
+            fleet[i].assignId(i);
+            fleet[i].attachTo(fleetState, i);
+            moving[i] = i;
+        }
+        
+        if(binaryLog){
+            BinaryLog.writeHeader(log.buffer(), depots, fleet);
+        }
+        else if(!textLog && !summaryLog){
+            deltaLog = new DeltaLog(depots, fleet, fleetState, runConfig.keyframeInterval, runConfig.offHeap);
+            deltaLog.writeHeader(log.buffer());
+        }
         
-        window.add(comp);
-        window.setVisible(true);
+        if(subscribers.size() > 0){
+            bus = new EventBus(eventRingSize);
+            while(subscribers.size() > 0){
+                bus.subscribe(subscribers.popFront());
+            }
+            for(Truck t : fleet){
+                t.setEventBus(bus);
+            }
+            for(Warehouse w : depots){
+                w.setEventBus(bus);
+            }
+            bus.start();
+        }
     }
     
     /**
@@ -276,13 +712,13 @@ public class Executer
      * is initialized is a bad idea.  Of course, this method is private, so
      * I know you won't do anything silly like that!
      */
-    private DeQueue<ShipmentOrder> generateManifest(){
+    private Manifest generateManifest(){
         if(warehouses.size()!= runConfig.numWarehouses || warehouses.size() < 2){
             throw new Error("I told you not to be silly!  Build those warehouses!");
         }
         
-        // i'm tired of writing out that type, lets make the the compiler decide it
-        var retval = new DeQueue<ShipmentOrder>();
+        // our orders are the next ones to go in the table
+        int first = orders.size();
         
         // alrighty, now lets build the orders!
         for(int i = 0; i < runConfig.numOrdersPerTruck; i++){
@@ -298,12 +734,10 @@ public class Executer
             // out of and back into one warehouse.  But I think it mentions or implies
             // somewhere that the destination and origin should be different.
             
-            // now, build the order, and add it to the list
-            Warehouse origin = warehouses.get(dex1);
-            Warehouse destination = warehouses.get(dex2);
-            retval.add(new ShipmentOrder(origin,destination));
+            // now, build the order, and add it to the table
+            orders.add(dex1, dex2);
         }
         
-        return retval;
+        return new Manifest(orders, first, runConfig.numOrdersPerTruck);
     }
 }
@@ -0,0 +1,362 @@
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * The parts of every truck in a run that change as it drives around: where
+ * it is, where it's going, how fast, how much cargo it has, whether it is
+ * stopped, and what it has done since its last status.  Rather than each truck keeping these in its own fields (and making
+ * a new Point every time it moves), they live here in one array per field,
+ * with each truck owning one slot of every array.
+ * <p>
+ * That makes moving a truck a handful of array reads and writes, with nothing
+ * allocated at all, and moving the whole fleet a walk down a few arrays.  The
+ * Truck objects are still there, holding the things that don't change every
+ * tick (the manifest, the router, the cargo itself), and reading their position
+ * out of here whenever someone asks for it.
+ * <p>
+ * A truck gets a state of its own with a single slot when it is built, so
+ * trucks work fine on their own: the Executer moves them all into one shared
+ * state once the run is put together.
+ * <p>
+ * The arrays can live either on the heap, or off of it (see Buffers): the
+ * storage=offheap option picks the latter, for fleets so big that the garbage
+ * collector would otherwise spend all day looking at them.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class FleetState
+{
+    // the bits of the flags array
+    private static final byte PAUSED = 1;
+    private static final byte COMPLETE = 2;
+    
+    private final DoubleBuffer xPos;
+    private final DoubleBuffer yPos;
+    private final DoubleBuffer targetX;
+    private final DoubleBuffer targetY;
+    private final DoubleBuffer speed;
+    private final IntBuffer cargo;
+    private final IntBuffer cargoTicks;
+    private final ByteBuffer flags;
+    
+    // the things each truck has done since its last status (see Truck.noteEvent()):
+    // every truck has room for eventStride of them, one after the other, and they
+    // all get more room at once if any of them runs out
+    private final boolean offHeap;
+    private final IntBuffer eventCount;
+    private int eventStride = 2;
+    private ByteBuffer eventKinds;
+    private DoubleBuffer eventX;
+    private DoubleBuffer eventY;
+    
+    /**
+     * Makes a state on the heap with room for the given number of trucks: every
+     * slot starts out at the origin, moving and empty.
+     */
+    public FleetState(int size){
+        this(size, false);
+    }
+    
+    /**
+     * Makes a state with room for the given number of trucks
+     * 
+     * @param size the number of trucks
+     * @param offHeap true to keep everything off of the heap
+     */
+    public FleetState(int size, boolean offHeap){
+        xPos = Buffers.doubles(size, offHeap);
+        yPos = Buffers.doubles(size, offHeap);
+        targetX = Buffers.doubles(size, offHeap);
+        targetY = Buffers.doubles(size, offHeap);
+        speed = Buffers.doubles(size, offHeap);
+        cargo = Buffers.ints(size, offHeap);
+        cargoTicks = Buffers.ints(size, offHeap);
+        flags = Buffers.bytes(size, offHeap);
+        this.offHeap = offHeap;
+        eventCount = Buffers.ints(size, offHeap);
+        eventKinds = Buffers.bytes(size * eventStride, offHeap);
+        eventX = Buffers.doubles(size * eventStride, offHeap);
+        eventY = Buffers.doubles(size * eventStride, offHeap);
+    }
+    
+    /**
+     * Gets the number of trucks this has room for
+     */
+    public int size(){
+        return flags.capacity();
+    }
+    
+    /**
+     * Moves a truck one tick closer to its target, and notes the cargo it carried
+     * while doing so.  This is exactly Point.calculateNext(), just without the
+     * Points: so the truck ends up at exactly the same spot as it always has.
+     *
+     * @param slot the truck to move
+     * @return true if the truck has just arrived at its target: it is now paused
+     */
+    public boolean step(int slot){
+        if((flags.get(slot) & PAUSED) != 0){
+            return false;
+        }
+        moveAlong(slot);
+        cargoTicks.put(slot, cargoTicks.get(slot) + cargo.get(slot));
+        
+        // the same tolerance Point.equals() gives us
+        if(Point.floatingEquals(xPos.get(slot), targetX.get(slot))
+            && Point.floatingEquals(yPos.get(slot), targetY.get(slot))){
+            flags.put(slot, (byte) (flags.get(slot) | PAUSED));
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Moves a truck along as though step() had been called the given number of
+     * times, without checking for arrival on the way: see Truck.advance()
+     */
+    public void advance(int slot, int ticks){
+        if((flags.get(slot) & PAUSED) != 0){
+            return;
+        }
+        for(int i = 0; i < ticks; i++){
+            moveAlong(slot);
+        }
+        cargoTicks.put(slot, cargoTicks.get(slot) + cargo.get(slot) * ticks);
+    }
+    
+    /**
+     * Puts a truck right on its target and stops it, counting the given number
+     * of ticks of cargo: see Truck.arrive()
+     */
+    public void arrive(int slot, int ticks){
+        xPos.put(slot, targetX.get(slot));
+        yPos.put(slot, targetY.get(slot));
+        cargoTicks.put(slot, cargoTicks.get(slot) + cargo.get(slot) * ticks);
+        flags.put(slot, (byte) (flags.get(slot) | PAUSED));
+    }
+    
+    /**
+     * The position half of a step: Point.calculateNext(), done in place
+     */
+    private void moveAlong(int slot){
+        double x = xPos.get(slot);
+        double y = yPos.get(slot);
+        double distToMove = speed.get(slot);
+        
+        double totalDist = Point.distance(x, y, targetX.get(slot), targetY.get(slot));
+        // if we'd go too far, just land on the target
+        if(totalDist < distToMove){
+            xPos.put(slot, targetX.get(slot));
+            yPos.put(slot, targetY.get(slot));
+            return;
+        }
+        // if it's asking us to stay still, don't make NaN's!
+        if(distToMove == 0.0){
+            return;
+        }
+        xPos.put(slot, x + (targetX.get(slot) - x)/totalDist * distToMove);
+        yPos.put(slot, y + (targetY.get(slot) - y)/totalDist * distToMove);
+    }
+    
+    /**
+     * Sets where a truck is and how fast it goes
+     */
+    public void place(int slot, double x, double y, double moveSpeed){
+        xPos.put(slot, x);
+        yPos.put(slot, y);
+        speed.put(slot, moveSpeed);
+    }
+    
+    /**
+     * Sets where a truck is heading
+     */
+    public void setTarget(int slot, Point target){
+        setTarget(slot, target.xPos, target.yPos);
+    }
+    
+    public void setTarget(int slot, double x, double y){
+        targetX.put(slot, x);
+        targetY.put(slot, y);
+    }
+    
+    /**
+     * Copies everything about one truck into a slot of another state
+     */
+    public void copyTo(int slot, FleetState other, int otherSlot){
+        other.xPos.put(otherSlot, xPos.get(slot));
+        other.yPos.put(otherSlot, yPos.get(slot));
+        other.targetX.put(otherSlot, targetX.get(slot));
+        other.targetY.put(otherSlot, targetY.get(slot));
+        other.speed.put(otherSlot, speed.get(slot));
+        other.cargo.put(otherSlot, cargo.get(slot));
+        other.cargoTicks.put(otherSlot, cargoTicks.get(slot));
+        other.flags.put(otherSlot, flags.get(slot));
+        other.clearEvents(otherSlot);
+        for(int i = 0; i < getEventCount(slot); i++){
+            other.addEvent(otherSlot, getEventKind(slot, i), getEventX(slot, i), getEventY(slot, i));
+        }
+    }
+    
+    /**
+     * Whether a truck is in exactly the same place, heading to exactly the same
+     * place at the same speed, with the same cargo and flags, as a truck in another
+     * state.  The cargo ticks don't count: they're only kept for the statistics.
+     */
+    public boolean sameAs(int slot, FleetState other, int otherSlot){
+        // compared bit by bit: "close enough" isn't, when the point is to carry on
+        // from here and get the same answers
+        return sameBits(xPos.get(slot), other.xPos.get(otherSlot))
+            && sameBits(yPos.get(slot), other.yPos.get(otherSlot))
+            && sameBits(targetX.get(slot), other.targetX.get(otherSlot))
+            && sameBits(targetY.get(slot), other.targetY.get(otherSlot))
+            && sameBits(speed.get(slot), other.speed.get(otherSlot))
+            && cargo.get(slot) == other.cargo.get(otherSlot)
+            && flags.get(slot) == other.flags.get(otherSlot);
+    }
+    
+    private static boolean sameBits(double a, double b){
+        return Double.doubleToRawLongBits(a) == Double.doubleToRawLongBits(b);
+    }
+    
+    public double getX(int slot){
+        return xPos.get(slot);
+    }
+    
+    public double getY(int slot){
+        return yPos.get(slot);
+    }
+    
+    public double getTargetX(int slot){
+        return targetX.get(slot);
+    }
+    
+    public double getTargetY(int slot){
+        return targetY.get(slot);
+    }
+    
+    /**
+     * Gets the distance a truck moves in one tick
+     */
+    public double getSpeed(int slot){
+        return speed.get(slot);
+    }
+    
+    /**
+     * Gets the number of pieces of cargo a truck has on board
+     */
+    public int getCargo(int slot){
+        return cargo.get(slot);
+    }
+    
+    public void setCargo(int slot, int count){
+        cargo.put(slot, count);
+    }
+    
+    /**
+     * Adds (or, with a negative number, removes) cargo from a truck
+     */
+    public void changeCargo(int slot, int change){
+        cargo.put(slot, cargo.get(slot) + change);
+    }
+    
+    /**
+     * Gets the number of ticks spent with each piece of cargo: see Truck.cargoFilledTime()
+     */
+    public int getCargoTicks(int slot){
+        return cargoTicks.get(slot);
+    }
+    
+    public boolean isPaused(int slot){
+        return (flags.get(slot) & PAUSED) != 0;
+    }
+    
+    public void setPaused(int slot, boolean paused){
+        if(paused){
+            flags.put(slot, (byte) (flags.get(slot) | PAUSED));
+        }
+        else{
+            flags.put(slot, (byte) (flags.get(slot) & ~PAUSED));
+        }
+    }
+    
+    public boolean isComplete(int slot){
+        return (flags.get(slot) & COMPLETE) != 0;
+    }
+    
+    /**
+     * Notes something a truck did, and where, to go in its next status
+     *
+     * @param kind one of the Truck event codes, like Truck.PICKED_UP
+     */
+    public void addEvent(int slot, byte kind, double x, double y){
+        int count = eventCount.get(slot);
+        if(count == eventStride){
+            growEvents();
+        }
+        int dex = slot * eventStride + count;
+        eventKinds.put(dex, kind);
+        eventX.put(dex, x);
+        eventY.put(dex, y);
+        eventCount.put(slot, count + 1);
+    }
+    
+    /**
+     * Doubles the room every truck has for events.  Trucks only do a couple of
+     * things a tick, so this only happens when statuses are few and far between.
+     */
+    private void growEvents(){
+        int newStride = eventStride * 2;
+        ByteBuffer kinds = Buffers.bytes(size() * newStride, offHeap);
+        DoubleBuffer xs = Buffers.doubles(size() * newStride, offHeap);
+        DoubleBuffer ys = Buffers.doubles(size() * newStride, offHeap);
+        for(int slot = 0; slot < size(); slot++){
+            for(int i = 0; i < eventCount.get(slot); i++){
+                kinds.put(slot * newStride + i, eventKinds.get(slot * eventStride + i));
+                xs.put(slot * newStride + i, eventX.get(slot * eventStride + i));
+                ys.put(slot * newStride + i, eventY.get(slot * eventStride + i));
+            }
+        }
+        eventKinds = kinds;
+        eventX = xs;
+        eventY = ys;
+        eventStride = newStride;
+    }
+    
+    /**
+     * Gets the number of things a truck has done since its last status
+     */
+    public int getEventCount(int slot){
+        return eventCount.get(slot);
+    }
+    
+    /**
+     * Gets what a truck did: the first thing since its last status is 0
+     */
+    public byte getEventKind(int slot, int event){
+        return eventKinds.get(slot * eventStride + event);
+    }
+    
+    public double getEventX(int slot, int event){
+        return eventX.get(slot * eventStride + event);
+    }
+    
+    public double getEventY(int slot, int event){
+        return eventY.get(slot * eventStride + event);
+    }
+    
+    /**
+     * Forgets everything a truck has done, once it's in a status
+     */
+    public void clearEvents(int slot){
+        eventCount.put(slot, 0);
+    }
+    
+    /**
+     * Marks a truck as having finished all of its orders.  It stays paused forever.
+     */
+    public void setComplete(int slot){
+        flags.put(slot, (byte) (flags.get(slot) | COMPLETE | PAUSED));
+    }
+}
@@ -0,0 +1,88 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Tests the FleetState: mostly, that moving a truck through it ends up in exactly
+ * the same place as moving a Point would have.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class FleetStateTest
+{
+    FleetState state;
+    Random rand = new Random(4321);
+    
+    @BeforeEach
+    public void setUp()
+    {
+        state = new FleetState(20);
+    }
+    
+    @Test
+    public void stepsMatchPoints(){
+        for(int i = 0; i < state.size(); i++){
+            Point location = new Point(rand.nextDouble()*1000, rand.nextDouble()*1000);
+            Point target = new Point(rand.nextDouble()*1000, rand.nextDouble()*1000);
+            double speed = rand.nextDouble()*20 + 1;
+            state.place(i, location.xPos, location.yPos, speed);
+            state.setTarget(i, target);
+            
+            boolean arrived = false;
+            while(!arrived){
+                location = location.calculateNext(target, speed);
+                arrived = state.step(i);
+                // not just close: exactly the same
+                assertEquals(location.xPos, state.getX(i));
+                assertEquals(location.yPos, state.getY(i));
+                assertEquals(location.equals(target), arrived);
+            }
+            assertTrue(state.isPaused(i));
+            // and once paused, it stays put
+            assertFalse(state.step(i));
+            assertEquals(location.xPos, state.getX(i));
+        }
+    }
+    
+    @Test
+    public void cargoIsCounted(){
+        state.place(0, 0, 0, 1);
+        state.setTarget(0, new Point(100, 0));
+        state.changeCargo(0, 2);
+        state.step(0);
+        state.step(0);
+        state.advance(0, 3);
+        assertEquals(10, state.getCargoTicks(0));
+        assertEquals(5, state.getX(0));
+        state.changeCargo(0, -1);
+        state.arrive(0, 4);
+        assertEquals(14, state.getCargoTicks(0));
+        assertEquals(100, state.getX(0));
+        assertTrue(state.isPaused(0));
+    }
+    
+    @Test
+    public void copyToMovesEverything(){
+        state.place(3, 1, 2, 3);
+        state.setTarget(3, new Point(10, 10));
+        state.changeCargo(3, 1);
+        state.step(3);
+        state.setComplete(3);
+        
+        FleetState other = new FleetState(5);
+        state.copyTo(3, other, 4);
+        assertEquals(state.getX(3), other.getX(4));
+        assertEquals(state.getY(3), other.getY(4));
+        assertEquals(1, other.getCargo(4));
+        assertEquals(1, other.getCargoTicks(4));
+        assertTrue(other.isComplete(4));
+        assertTrue(other.isPaused(4));
+        // and the rest of the other state is untouched
+        assertFalse(other.isPaused(3));
+        assertEquals(0, other.getX(3));
+    }
+}
@@ -0,0 +1,502 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A DoublyLinkedList that can get at, add or remove any index in O(log N),
+ * rather than walking there from one end.  It can go anywhere a DoublyLinkedList
+ * can, lock, clone and fake queue included.
+ * <p>
+ * Inside, it's not a linked list at all, but a tree: an implicit treap.  Each
+ * node knows how many nodes are in its subtree, which is all it takes to find
+ * the Nth one, by going left or right depending on how many are on the left.
+ * To keep it balanced, each node also gets a random priority, and the tree is
+ * kept so that every node's priority is higher than its children's: which makes
+ * it just as balanced as if the elements had been added in a random order,
+ * whatever order they really came in.  The nodes also know their parents, so that
+ * going from one node to the next is cheap: going through the whole list in order
+ * is O(N), just like a linked list.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class IndexedList<E> extends DoublyLinkedList<E>
+{
+    private TreeNode<E> root = null;
+    // the next node the fake queue gives out
+    private TreeNode<E> curr = null;
+    // the priorities only have to look random, so a xorshift is plenty
+    private int seed = 0x2545F491;
+    
+    // where split() puts its two halves
+    private TreeNode<E> splitLeft;
+    private TreeNode<E> splitRight;
+    
+    private static int sizeOf(TreeNode<?> node){
+        return node == null ? 0 : node.size;
+    }
+    
+    private int nextPriority(){
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+    
+    private static <E> void setLeft(TreeNode<E> node, TreeNode<E> child){
+        node.left = child;
+        if(child != null){
+            child.parent = node;
+        }
+    }
+    
+    private static <E> void setRight(TreeNode<E> node, TreeNode<E> child){
+        node.right = child;
+        if(child != null){
+            child.parent = node;
+        }
+    }
+    
+    private static void resize(TreeNode<?> node){
+        node.size = 1 + sizeOf(node.left) + sizeOf(node.right);
+    }
+    
+    /**
+     * Splits a tree in two: the first count nodes go in splitLeft, and the rest
+     * in splitRight.  Neither of the halves has its parent cleared.
+     */
+    private void split(TreeNode<E> node, int count){
+        if(node == null){
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        if(sizeOf(node.left) < count){
+            // this node goes on the left, along with some of its right subtree
+            split(node.right, count - sizeOf(node.left) - 1);
+            setRight(node, splitLeft);
+            resize(node);
+            splitLeft = node;
+        }
+        else{
+            split(node.left, count);
+            setLeft(node, splitRight);
+            resize(node);
+            splitRight = node;
+        }
+    }
+    
+    /**
+     * Joins two trees into one, with all of first's nodes before all of second's
+     *
+     * @return the root of the joined tree, whose parent is left for the caller to set
+     */
+    private static <E> TreeNode<E> merge(TreeNode<E> first, TreeNode<E> second){
+        if(first == null){
+            return second;
+        }
+        if(second == null){
+            return first;
+        }
+        if(first.priority > second.priority){
+            setRight(first, merge(first.right, second));
+            resize(first);
+            return first;
+        }
+        else{
+            setLeft(second, merge(first, second.left));
+            resize(second);
+            return second;
+        }
+    }
+    
+    /**
+     * Finds the node at an index
+     *
+     * @throws IndexOutOfBoundsException when index is too large or too small
+     */
+    private TreeNode<E> nodeAt(int index){
+        if(index >= size() || index < 0){
+            throw new IndexOutOfBoundsException(
+                String.format("Index %d out of bounds for list length %d", index, size()));
+        }
+        TreeNode<E> node = root;
+        while(true){
+            int leftSize = sizeOf(node.left);
+            if(index < leftSize){
+                node = node.left;
+            }
+            else if(index == leftSize){
+                return node;
+            }
+            else{
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+    
+    /**
+     * Gets the first node of a subtree
+     */
+    private static <E> TreeNode<E> leftmost(TreeNode<E> node){
+        while(node != null && node.left != null){
+            node = node.left;
+        }
+        return node;
+    }
+    
+    /**
+     * Gets the node after the given one, or null if it's the last.  Going through
+     * the whole list with this only goes up and down each edge of the tree once.
+     */
+    private static <E> TreeNode<E> successor(TreeNode<E> node){
+        if(node.right != null){
+            return leftmost(node.right);
+        }
+        while(node.parent != null && node.parent.right == node){
+            node = node.parent;
+        }
+        return node.parent;
+    }
+    
+    private void checkUnlocked(){
+        if(isLocked()){
+            throw new IllegalStateException("This list has been locked: modifications are impossible");
+        }
+    }
+    
+    /**
+     * We keep everything in our tree: the linked list's nodes are never used
+     */
+    @Override
+    protected boolean keepsNodes(){
+        return false;
+    }
+    
+    @Override
+    public E get(int index){
+        return nodeAt(index).data;
+    }
+    
+    @Override
+    public void remove(int index){
+        checkUnlocked();
+        TreeNode<E> target = nodeAt(index);
+        // the fake queue moves on to the next one, just like in the linked list
+        if(curr == target){
+            curr = successor(target);
+        }
+        
+        // the target's children take its place, and everything above it shrinks by one
+        TreeNode<E> replacement = merge(target.left, target.right);
+        TreeNode<E> parent = target.parent;
+        if(parent == null){
+            root = replacement;
+            if(root != null){
+                root.parent = null;
+            }
+        }
+        else if(parent.left == target){
+            setLeft(parent, replacement);
+        }
+        else{
+            setRight(parent, replacement);
+        }
+        for(TreeNode<E> above = parent; above != null; above = above.parent){
+            above.size--;
+        }
+    }
+    
+    @Override
+    public void add(E data){
+        add(size(), data);
+    }
+    
+    @Override
+    public void add(int index, E data){
+        checkUnlocked();
+        if(index > size() || index < 0){
+            throw new IndexOutOfBoundsException(
+                String.format("Index %d out of bounds for list length %d", index, size()));
+        }
+        TreeNode<E> newNode = new TreeNode<E>();
+        newNode.data = data;
+        newNode.priority = nextPriority();
+        newNode.size = 1;
+        if(root == null){
+            // the first element in an empty list is where the fake queue starts
+            curr = newNode;
+        }
+        
+        split(root, index);
+        TreeNode<E> before = splitLeft;
+        TreeNode<E> after = splitRight;
+        splitLeft = null;
+        splitRight = null;
+        root = merge(merge(before, newNode), after);
+        root.parent = null;
+    }
+    
+    @Override
+    public int size(){
+        return sizeOf(root);
+    }
+    
+    @Override
+    public boolean isEmpty(){
+        return root == null;
+    }
+    
+    @Override
+    public E fakePop(){
+        if(curr == null){
+            throw new IndexOutOfBoundsException("fake pop went too far this time!");
+        }
+        E retval = curr.data;
+        curr = successor(curr);
+        return retval;
+    }
+    
+    @Override
+    public void resetFakeQueue(){
+        curr = leftmost(root);
+    }
+    
+    @Override
+    public <G> DoublyLinkedList<G> applyFunctionToList(Function<E,G> function){
+        DoublyLinkedList<G> results = new DoublyLinkedList<G>();
+        for(TreeNode<E> cur = leftmost(root); cur != null; cur = successor(cur)){
+            results.add(function.apply(cur.data));
+        }
+        return results;
+    }
+    
+    @Override
+    public void forEach(Consumer<? super E> action){
+        for(TreeNode<E> cur = leftmost(root); cur != null; cur = successor(cur)){
+            action.accept(cur.data);
+        }
+    }
+    
+    @Override
+    public double foldDouble(double initial, DoubleFolder<? super E> folder){
+        double total = initial;
+        for(TreeNode<E> cur = leftmost(root); cur != null; cur = successor(cur)){
+            total = folder.fold(total, cur.data);
+        }
+        return total;
+    }
+    
+    @Override
+    public long foldLong(long initial, LongFolder<? super E> folder){
+        long total = initial;
+        for(TreeNode<E> cur = leftmost(root); cur != null; cur = successor(cur)){
+            total = folder.fold(total, cur.data);
+        }
+        return total;
+    }
+    
+    @Override
+    public <G> G[] mapInto(G[] destination, Function<? super E, ? extends G> function){
+        if(destination.length < size()){
+            throw new IndexOutOfBoundsException(
+                String.format("An array of %d can't hold the results for a list of %d", destination.length, size()));
+        }
+        int i = 0;
+        for(TreeNode<E> cur = leftmost(root); cur != null; cur = successor(cur)){
+            destination[i++] = function.apply(cur.data);
+        }
+        return destination;
+    }
+    
+    @Override
+    public double[] mapToDoubles(double[] destination, ToDoubleFunction<? super E> function){
+        if(destination.length < size()){
+            throw new IndexOutOfBoundsException(
+                String.format("An array of %d can't hold the results for a list of %d", destination.length, size()));
+        }
+        int i = 0;
+        for(TreeNode<E> cur = leftmost(root); cur != null; cur = successor(cur)){
+            destination[i++] = function.applyAsDouble(cur.data);
+        }
+        return destination;
+    }
+    
+    @Override
+    public E argMin(ToDoubleFunction<? super E> key){
+        double least = Double.POSITIVE_INFINITY;
+        E retval = null;
+        for(TreeNode<E> cur = leftmost(root); cur != null; cur = successor(cur)){
+            double value = key.applyAsDouble(cur.data);
+            if(value < least){
+                least = value;
+                retval = cur.data;
+            }
+        }
+        return retval;
+    }
+    
+    @Override
+    public Iterator<E> iterator(){
+        return new Iterator<E>(){
+            private TreeNode<E> next = leftmost(root);
+            
+            @Override
+            public boolean hasNext(){
+                return next != null;
+            }
+            
+            @Override
+            public E next(){
+                if(next == null){
+                    throw new NoSuchElementException("The list has no more elements");
+                }
+                E retval = next.data;
+                next = successor(next);
+                return retval;
+            }
+        };
+    }
+    
+    /**
+     * Gets a spliterator over this list.  Splitting it finds the middle by index,
+     * so it only goes down the tree rather than walking along the list.
+     */
+    @Override
+    public Spliterator<E> spliterator(){
+        return new TreeSpliterator(leftmost(root), 0, size());
+    }
+    
+    @Override
+    public String toString(){
+        StringBuilder retval = new StringBuilder();
+        for(TreeNode<E> cur = leftmost(root); cur != null; cur = successor(cur)){
+            retval.append(cur.data.toString());
+            retval.append(", ");
+        }
+        return retval.toString();
+    }
+    
+    @Override
+    public void clear(){
+        root = null;
+        curr = null;
+    }
+    
+    /**
+     * Appends another list onto the end of this one.  Unlike the linked list, this
+     * copies the other list's elements in, so the other list can be empty.
+     */
+    @Override
+    public void append(DoublyLinkedList<E> other){
+        if(other == this){
+            other = other.clone();
+        }
+        other.forEach(this::add);
+    }
+    
+    /**
+     * The linked list's cloneInto() would copy our (nonexistent) nodes, and give
+     * an empty list: so this one copies our elements over instead.  Our own
+     * clone() doesn't need it, but a subclass's might.
+     */
+    @Override
+    protected void cloneInto(DoublyLinkedList<E> retval){
+        forEach(retval::add);
+        retval.resetFakeQueue();
+    }
+    
+    /**
+     * Clones the list: a shallow copy of the elements, in a tree of the same
+     * shape, which isn't locked, with the fake queue at the start
+     */
+    @Override
+    public IndexedList<E> clone(){
+        IndexedList<E> retval = new IndexedList<E>();
+        retval.seed = seed;
+        retval.root = copyTree(root);
+        retval.resetFakeQueue();
+        return retval;
+    }
+    
+    private static <E> TreeNode<E> copyTree(TreeNode<E> node){
+        if(node == null){
+            return null;
+        }
+        TreeNode<E> copy = new TreeNode<E>();
+        copy.data = node.data;
+        copy.priority = node.priority;
+        copy.size = node.size;
+        setLeft(copy, copyTree(node.left));
+        setRight(copy, copyTree(node.right));
+        return copy;
+    }
+    
+    private static class TreeNode<E>{
+        E data;
+        int priority;
+        // the number of nodes in the subtree this is the root of, this one included
+        int size;
+        TreeNode<E> left;
+        TreeNode<E> right;
+        TreeNode<E> parent;
+    }
+    
+    /**
+     * Covers a range of indexes in the list, starting from the given node
+     */
+    private class TreeSpliterator implements Spliterator<E>
+    {
+        private TreeNode<E> next;
+        private int index;
+        private final int end;
+        
+        TreeSpliterator(TreeNode<E> start, int index, int end){
+            next = start;
+            this.index = index;
+            this.end = end;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action){
+            if(index >= end){
+                return false;
+            }
+            E data = next.data;
+            next = successor(next);
+            index++;
+            action.accept(data);
+            return true;
+        }
+        
+        @Override
+        public Spliterator<E> trySplit(){
+            if(end - index < 2){
+                return null;
+            }
+            int middle = index + (end - index) / 2;
+            TreeSpliterator front = new TreeSpliterator(next, index, middle);
+            next = nodeAt(middle);
+            index = middle;
+            return front;
+        }
+        
+        @Override
+        public long estimateSize(){
+            return end - index;
+        }
+        
+        @Override
+        public int characteristics(){
+            int traits = Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+            if(isLocked()){
+                traits |= Spliterator.IMMUTABLE;
+            }
+            return traits;
+        }
+    }
+}
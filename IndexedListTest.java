@@ -0,0 +1,142 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * This tests the IndexedList class.  It has to pass every test a DoublyLinkedList
+ * does, so it gets them all by filling the test arrays with IndexedLists instead:
+ * and then some more, to shake the tree about.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class IndexedListTest extends DoublyLinkedListTest
+{
+    @Override
+    public void createArrays(){
+        super.createArrays();
+        emptyArray = new IndexedList<Integer>();
+        increasingToNineArray = new IndexedList<Integer>();
+        increasingToTwentyArray = new IndexedList<Integer>();
+        halfEmptiedArray = new IndexedList<Integer>();
+        decreasingFromTwentyArray = new IndexedList<Integer>();
+    }
+    
+    /**
+     * Test that it behaves just like a linked list, fake queue and all, whatever
+     * gets done to them both
+     */
+    @Test
+    public void testMatchesLinkedList(){
+        Random rand = new Random(7);
+        DoublyLinkedList<Integer> linked = new DoublyLinkedList<Integer>();
+        IndexedList<Integer> tree = new IndexedList<Integer>();
+        for(int step = 0; step < 5000; step++){
+            int choice = rand.nextInt(10);
+            if(choice < 5 || linked.isEmpty()){
+                int index = rand.nextInt(linked.size() + 1);
+                linked.add(index, step);
+                tree.add(index, step);
+            }
+            else if(choice < 7){
+                int index = rand.nextInt(linked.size());
+                linked.remove(index);
+                tree.remove(index);
+            }
+            else if(choice < 8){
+                linked.resetFakeQueue();
+                tree.resetFakeQueue();
+            }
+            else{
+                // both run off the end at the same time, or neither does
+                try{
+                    Integer expected = linked.fakePop();
+                    assertEquals(expected, tree.fakePop());
+                }
+                catch(IndexOutOfBoundsException e){
+                    assertThrows(IndexOutOfBoundsException.class, ()->tree.fakePop());
+                }
+            }
+            assertEquals(linked.size(), tree.size());
+            if(!linked.isEmpty()){
+                int index = rand.nextInt(linked.size());
+                assertEquals(linked.get(index), tree.get(index));
+            }
+        }
+        assertEquals(linked.toString(), tree.toString());
+    }
+    
+    /**
+     * Test a bigger list, with adds and removes all over the place, against an ArrayList
+     */
+    @Test
+    public void testBigList(){
+        Random rand = new Random(11);
+        IndexedList<Integer> tree = new IndexedList<Integer>();
+        ArrayList<Integer> expected = new ArrayList<Integer>();
+        for(int i = 0; i < 2000; i++){
+            tree.add(i);
+            expected.add(i);
+        }
+        // get them in a random order
+        for(int i = 0; i < 2000; i++){
+            int index = rand.nextInt(2000);
+            assertEquals(expected.get(index), tree.get(index));
+        }
+        // and add and remove in the middle
+        for(int i = 0; i < 1000; i++){
+            int index = rand.nextInt(tree.size());
+            tree.remove(index);
+            expected.remove(index);
+        }
+        assertEquals(1000, tree.size());
+        for(int i = 0; i < 1000; i++){
+            int index = rand.nextInt(tree.size() + 1);
+            tree.add(index, -i);
+            expected.add(index, -i);
+        }
+        ArrayList<Integer> actual = new ArrayList<Integer>();
+        tree.forEach(actual::add);
+        assertEquals(expected, actual);
+        assertEquals(2000, tree.stream().count());
+        assertEquals(tree.stream().mapToLong(Integer::longValue).sum(),
+                     tree.parallelStream().mapToLong(Integer::longValue).sum());
+    }
+    
+    /**
+     * Test that clones are IndexedLists too, that don't share anything with the
+     * original, and that locking works the same way
+     */
+    @Test
+    public void testCloneAndLock(){
+        IndexedList<Integer> tree = new IndexedList<Integer>();
+        for(int i = 0; i < 100; i++){
+            tree.add(i / 2, i);
+        }
+        tree.lock();
+        assertThrows(IllegalStateException.class, ()->tree.add(5));
+        assertThrows(IllegalStateException.class, ()->tree.remove(0));
+        
+        IndexedList<Integer> copy = tree.clone();
+        assertFalse(copy.isLocked());
+        assertEquals(tree.toString(), copy.toString());
+        copy.remove(50);
+        copy.add(0, -1);
+        assertEquals(100, tree.size());
+        assertEquals(-1, copy.get(0));
+        assertEquals(tree.get(0), copy.get(1));
+        
+        // appending itself onto itself doubles it, rather than going on forever
+        copy.append(copy);
+        assertEquals(200, copy.size());
+        assertEquals(copy.get(5), copy.get(105));
+        
+        // a subclass cloning itself into some other kind of list still gets everything
+        DeQueue<Integer> into = new DeQueue<Integer>();
+        tree.cloneInto(into);
+        assertEquals(tree.toString(), into.toString());
+        assertEquals(tree.get(0), into.fakePop());
+    }
+}
@@ -11,6 +11,10 @@ public class LargeTruck extends Truck
         super(3, cargo, router, startingPoint);
     }
     
+    LargeTruck(Manifest cargo, Class<? extends Router> router, Point startingPoint){
+        super(3, cargo, router, startingPoint);
+    }
+    
     public double getMoveSpeed(){
         return 3;
     }
@@ -0,0 +1,188 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A growable buffer of bytes, that the simulation fills with log entries and
+ * the LogWriter empties into a file.  It's a lot like a StringBuilder, except that
+ * it holds bytes instead of chars: everything in our logs is plain ASCII, so we can
+ * skip the character encoding entirely, and just copy the low byte of each char.
+ * It can also take raw numbers, for binary logs: see BinaryLog.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class LogBuffer
+{
+    private byte[] bytes;
+    private int length = 0;
+    
+    /**
+     * @param initialCapacity the number of bytes to make room for up front: the
+     * buffer grows past this if it needs to
+     */
+    public LogBuffer(int initialCapacity){
+        bytes = new byte[Math.max(16, initialCapacity)];
+    }
+    
+    /**
+     * Adds some (ASCII) text to the buffer
+     */
+    public LogBuffer append(CharSequence text){
+        int count = text.length();
+        ensureRoom(count);
+        for(int i = 0; i < count; i++){
+            bytes[length++] = (byte) text.charAt(i);
+        }
+        return this;
+    }
+    
+    /**
+     * Adds a single (ASCII) character to the buffer
+     */
+    public LogBuffer append(char c){
+        ensureRoom(1);
+        bytes[length++] = (byte) c;
+        return this;
+    }
+    
+    /**
+     * Adds a number to the buffer, written out in decimal
+     */
+    public LogBuffer append(long number){
+        // Long.MIN_VALUE can't be negated: but it's rare enough to not care how slow it is
+        if(number == Long.MIN_VALUE){
+            return append(Long.toString(number));
+        }
+        ensureRoom(20);
+        if(number < 0){
+            bytes[length++] = '-';
+            number = -number;
+        }
+        // write the digits out backwards, then flip them around
+        int start = length;
+        do{
+            bytes[length++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while(number != 0);
+        for(int i = start, j = length - 1; i < j; i++, j--){
+            byte tmp = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = tmp;
+        }
+        return this;
+    }
+    
+    /**
+     * Adds a single byte to the buffer, for binary logs.  All of the put methods
+     * write their numbers big-end first, just like a DataOutputStream would.
+     */
+    public LogBuffer putByte(int value){
+        ensureRoom(1);
+        bytes[length++] = (byte) value;
+        return this;
+    }
+    
+    public LogBuffer putShort(int value){
+        ensureRoom(2);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+        return this;
+    }
+    
+    public LogBuffer putInt(int value){
+        ensureRoom(4);
+        bytes[length++] = (byte) (value >>> 24);
+        bytes[length++] = (byte) (value >>> 16);
+        bytes[length++] = (byte) (value >>> 8);
+        bytes[length++] = (byte) value;
+        return this;
+    }
+    
+    public LogBuffer putLong(long value){
+        putInt((int) (value >>> 32));
+        putInt((int) value);
+        return this;
+    }
+    
+    public LogBuffer putDouble(double value){
+        return putLong(Double.doubleToRawLongBits(value));
+    }
+    
+    /**
+     * Overwrites four bytes that are already in the buffer with an int: for
+     * filling in a length once we know what it is
+     * 
+     * @param position where the int starts
+     */
+    public void setInt(int position, int value){
+        if(position < 0 || position + 4 > length){
+            throw new IndexOutOfBoundsException("No int at " + position + " in a buffer of " + length);
+        }
+        bytes[position] = (byte) (value >>> 24);
+        bytes[position + 1] = (byte) (value >>> 16);
+        bytes[position + 2] = (byte) (value >>> 8);
+        bytes[position + 3] = (byte) value;
+    }
+    
+    /**
+     * Throws away everything after the given number of bytes: for taking back
+     * something that turned out not to be worth writing
+     */
+    public void truncate(int size){
+        if(size < 0 || size > length){
+            throw new IndexOutOfBoundsException("Can't cut a buffer of " + length + " down to " + size);
+        }
+        length = size;
+    }
+    
+    /**
+     * Gets the number of bytes in the buffer
+     */
+    public int size(){
+        return length;
+    }
+    
+    /**
+     * Empties the buffer, keeping the space it had
+     */
+    public void clear(){
+        length = 0;
+    }
+    
+    /**
+     * Adds everything in another buffer to this one
+     */
+    public LogBuffer append(LogBuffer other){
+        ensureRoom(other.length);
+        System.arraycopy(other.bytes, 0, bytes, length, other.length);
+        length += other.length;
+        return this;
+    }
+    
+    /**
+     * Gets what's in the buffer as text: for anyone who really does need a String
+     */
+    @Override
+    public String toString(){
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+    
+    /**
+     * Writes everything in the buffer out to a stream
+     */
+    public void writeTo(OutputStream out) throws IOException{
+        out.write(bytes, 0, length);
+    }
+    
+    /**
+     * Makes sure there is room for at least this many more bytes
+     */
+    protected void ensureRoom(int extra){
+        if(length + extra > bytes.length){
+            byte[] bigger = new byte[Math.max(bytes.length * 2, length + extra)];
+            System.arraycopy(bytes, 0, bigger, 0, length);
+            bytes = bigger;
+        }
+    }
+}
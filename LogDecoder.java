@@ -0,0 +1,205 @@
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns a binary run log (see BinaryLog) back into the text log that the run
+ * would have written, byte for byte.  Run it from the command line as
+ * <p>
+ * java LogDecoder binaryLogFile [textLogFile]
+ * <p>
+ * which writes the text to the given file, or to the screen if there isn't one.
+ * Compressed logs are fine too: see Compression.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class LogDecoder
+{
+    private final DataInputStream in;
+    private final Writer out;
+    // what we learned from the header
+    private String[] warehouseLocations;
+    private int[] truckCapacities;
+    // each line gets built up in here before it's written
+    private final StringBuilder line = new StringBuilder();
+    
+    private LogDecoder(InputStream input, OutputStream output) throws IOException{
+        in = new DataInputStream(Compression.decompress(input));
+        out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.US_ASCII), 1 << 16);
+    }
+    
+    public static void main(String[] args){
+        if(args.length < 1 || args.length > 2){
+            System.err.println("Usage: java LogDecoder binaryLogFile [textLogFile]");
+            return;
+        }
+        try(InputStream input = new FileInputStream(args[0])){
+            if(args.length == 2){
+                try(OutputStream output = new FileOutputStream(args[1])){
+                    decode(input, output);
+                }
+            }
+            else{
+                decode(input, System.out);
+            }
+        }
+        catch(Exception e){
+            throw new Error("Failed to decode " + args[0], e);
+        }
+    }
+    
+    /**
+     * Decodes a whole binary log, compressed or not.  The output is flushed, but not closed.
+     *
+     * @param input the binary log
+     * @param output where the text log goes
+     * @throws IOException if the log can't be read, or isn't a binary log
+     */
+    public static void decode(InputStream input, OutputStream output) throws IOException{
+        new LogDecoder(input, output).decodeAll();
+    }
+    
+    private void decodeAll() throws IOException{
+        readHeader();
+        while(true){
+            int kind = in.read();
+            if(kind == -1){
+                break;
+            }
+            switch(kind){
+                case BinaryLog.TICK:
+                    // the Executer doesn't mention the tick number
+                    in.readInt();
+                    for(int i = 0; i < warehouseLocations.length; i++){
+                        decodeWarehouse(i);
+                    }
+                    for(int i = 0; i < truckCapacities.length; i++){
+                        decodeTruck(i);
+                    }
+                    break;
+                case BinaryLog.EVENT_TICK:
+                    out.write("Tick " + in.readInt() + "\n");
+                    decodeEventItems();
+                    break;
+                case BinaryLog.SKIP:
+                    out.write("Ticks " + in.readInt() + "-" + in.readInt() + ": " + in.readInt()
+                                + " Trucks on the road, all warehouses empty\n");
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + kind);
+            }
+        }
+        out.flush();
+    }
+    
+    private void readHeader() throws IOException{
+        if(in.readInt() != BinaryLog.MAGIC){
+            throw new IOException("Not a binary run log");
+        }
+        int version = in.readByte();
+        if(version != BinaryLog.VERSION){
+            throw new IOException("Can't read version " + version + " binary logs");
+        }
+        warehouseLocations = new String[in.readInt()];
+        for(int i = 0; i < warehouseLocations.length; i++){
+            warehouseLocations[i] = readPoint();
+            // the dock count doesn't show up in the text
+            in.readByte();
+        }
+        truckCapacities = new int[in.readInt()];
+        for(int i = 0; i < truckCapacities.length; i++){
+            truckCapacities[i] = in.readShort();
+        }
+    }
+    
+    private void decodeEventItems() throws IOException{
+        while(true){
+            int item = in.readByte();
+            switch(item){
+                case BinaryLog.WAREHOUSE:
+                    decodeWarehouse(in.readInt());
+                    break;
+                case BinaryLog.TRUCK:
+                    decodeTruck(in.readInt());
+                    break;
+                case BinaryLog.END:
+                    return;
+                default:
+                    throw new IOException("Unknown tick item " + item);
+            }
+        }
+    }
+    
+    /**
+     * The same line as the Executer writes from Warehouse.status()
+     */
+    private void decodeWarehouse(int index) throws IOException{
+        line.append("Warehouse ");
+        line.append(index);
+        line.append(": ");
+        line.append(in.readInt());
+        line.append(" Trucks entering, ");
+        line.append(in.readInt());
+        line.append(" Trucks leaving\n");
+        writeLine();
+    }
+    
+    /**
+     * The same line as the Executer writes from Truck.status()
+     */
+    private void decodeTruck(int index) throws IOException{
+        line.append("Truck ");
+        line.append(index);
+        line.append(": ");
+        int flags = in.readByte();
+        if((flags & Truck.COMPLETE_FLAG) == 0){
+            int events = in.readUnsignedByte();
+            for(int i = 0; i < events; i++){
+                line.append(Truck.eventText(in.readByte()));
+                line.append(readPoint());
+                line.append(";  ");
+            }
+            line.append("Location: ");
+            line.append(readPoint());
+            line.append(" Destination: ");
+            int destination = in.readInt();
+            if(destination < 0){
+                line.append("None");
+            }
+            else{
+                line.append(warehouseLocations[destination]);
+            }
+            line.append(" Cargo: ");
+            line.append(in.readShort());
+            line.append("/");
+            line.append(truckCapacities[index]);
+            if((flags & Truck.PAUSED_FLAG) != 0){
+                line.append(" Paused, awaiting warehouse");
+            }
+        }
+        line.append('\n');
+        writeLine();
+    }
+    
+    /**
+     * Reads a pair of coordinates, and writes them out just like Point.toString()
+     */
+    private String readPoint() throws IOException{
+        long x = in.readInt();
+        long y = in.readInt();
+        return "(" + Point.hundredthsToString(x) + ", " + Point.hundredthsToString(y) + ")";
+    }
+    
+    private void writeLine() throws IOException{
+        out.append(line);
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,121 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Tests that binary logs decode back into exactly the text the statuses would
+ * have given.  Two identical little worlds are run side by side: one of them
+ * writes text, the other a binary log, and the decoded binary had better match.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class LogDecoderTest
+{
+    Warehouse[] warehouses;
+    Truck[] trucks;
+    
+    /**
+     * Builds a world of warehouses and trucks: the same seed always gives the same world
+     */
+    public void buildWorld(long seed){
+        Random rand = new Random(seed);
+        warehouses = new Warehouse[6];
+        for(int i = 0; i < warehouses.length; i++){
+            // some negative coordinates, to make sure they survive the trip
+            warehouses[i] = new Warehouse(new Point(rand.nextDouble()*100 - 30, rand.nextDouble()*100 - 30), i%2+1, i);
+        }
+        trucks = new Truck[8];
+        for(int i = 0; i < trucks.length; i++){
+            DeQueue<ShipmentOrder> manifest = new DeQueue<ShipmentOrder>();
+            for(int j = 0; j < 3; j++){
+                int start = rand.nextInt(warehouses.length);
+                int end = (start + 1 + rand.nextInt(warehouses.length - 1)) % warehouses.length;
+                manifest.add(new ShipmentOrder(warehouses[start], warehouses[end]));
+            }
+            Point p = new Point(rand.nextDouble()*100, rand.nextDouble()*100);
+            trucks[i] = i%2 == 0 ? new SmallTruck(manifest, BetterRouter.class, p)
+                                 : new LargeTruck(manifest, BadRouter.class, p);
+        }
+    }
+    
+    private void tick(){
+        for(Warehouse w : warehouses){
+            w.action();
+        }
+        for(Truck t : trucks){
+            t.action();
+        }
+    }
+    
+    @Test
+    public void decodedLogsMatchTheText() throws Exception{
+        buildWorld(42);
+        StringBuilder text = new StringBuilder();
+        for(int tick = 1; tick <= 200; tick++){
+            tick();
+            for(int i = 0; i < warehouses.length; i++){
+                text.append("Warehouse ").append(i).append(": ").append(warehouses[i].status()).append('\n');
+            }
+            for(int i = 0; i < trucks.length; i++){
+                text.append("Truck ").append(i).append(": ").append(trucks[i].status()).append('\n');
+            }
+        }
+        text.append("Ticks 201-250: 3 Trucks on the road, all warehouses empty\n");
+        
+        buildWorld(42);
+        LogBuffer binary = new LogBuffer(0);
+        BinaryLog.writeHeader(binary, warehouses, trucks);
+        for(int tick = 1; tick <= 200; tick++){
+            tick();
+            binary.putByte(BinaryLog.TICK).putInt(tick);
+            for(Warehouse w : warehouses){
+                w.encodeStatus(binary);
+            }
+            for(Truck t : trucks){
+                t.encodeStatus(binary);
+            }
+        }
+        binary.putByte(BinaryLog.SKIP).putInt(201).putInt(250).putInt(3);
+        
+        assertEquals(text.toString(), decode(binary));
+        // and it ought to be worth the trouble
+        assertTrue(binary.size() * 3 < text.length());
+    }
+    
+    @Test
+    public void eventTicksAreNumbered() throws Exception{
+        buildWorld(7);
+        LogBuffer binary = new LogBuffer(0);
+        BinaryLog.writeHeader(binary, warehouses, trucks);
+        binary.putByte(BinaryLog.EVENT_TICK).putInt(12);
+        binary.putByte(BinaryLog.WAREHOUSE).putInt(4);
+        warehouses[4].encodeStatus(binary);
+        binary.putByte(BinaryLog.TRUCK).putInt(3);
+        trucks[3].encodeStatus(binary);
+        binary.putByte(BinaryLog.END);
+        
+        assertEquals("Tick 12\n"
+                     + "Warehouse 4: " + warehouses[4].status() + "\n"
+                     + "Truck 3: " + trucks[3].status() + "\n",
+                     decode(binary));
+    }
+    
+    @Test
+    public void otherFilesAreRefused(){
+        LogBuffer notALog = new LogBuffer(0);
+        notALog.append("Warehouse 0: 0 Trucks entering, 0 Trucks leaving\n");
+        assertThrows(java.io.IOException.class, () -> decode(notALog));
+    }
+    
+    private String decode(LogBuffer binary) throws Exception{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        binary.writeTo(bytes);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        LogDecoder.decode(new ByteArrayInputStream(bytes.toByteArray()), text);
+        return text.toString("US-ASCII");
+    }
+}
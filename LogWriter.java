@@ -0,0 +1,279 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Writes a run's log file on a thread of its own, so that the simulation never
+ * has to sit and wait for the disk.
+ * <p>
+ * There are a handful of LogBuffers, which go round and round between the
+ * simulation and the writer thread.  The simulation fills the one it has, a tick
+ * at a time; once it's big enough to be worth writing, it gets handed over to the
+ * writer thread, and the simulation takes an empty one to carry on with.  If the
+ * writer falls so far behind that there are no empty ones left, the simulation
+ * waits for one: so a slow disk slows the run down, rather than the logs eating
+ * all the memory.
+ * <p>
+ * close() hands over whatever is left, waits for it all to be written, and closes
+ * the file.  It must be called once the run is done: nothing is guaranteed to be
+ * in the file before then.
+ * <p>
+ * The log can be compressed on the way out (see Compression).  That happens on
+ * the writer thread as well, closing included: so the simulation never waits
+ * on the compressor either, unless it falls behind.
+ * <p>
+ * It can also go into memory-mapped segment files instead (see MappedLogStream),
+ * along with an index of where each tick starts, which the simulation keeps up to
+ * date by calling markTick().
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class LogWriter
+{
+    /**
+     * A buffer is handed to the writer thread once it has at least this many bytes in it
+     */
+    public static final int batchBytes = 1 << 16;
+    
+    /**
+     * The number of buffers going round between the simulation and the writer
+     */
+    public static final int bufferCount = 4;
+    
+    // handed to the writer thread to tell it there's nothing more coming
+    private static final LogBuffer endOfLog = new LogBuffer(0);
+    
+    private final String name;
+    private final OutputStream out;
+    // for mapped logs: where they are, and where each tick starts in them
+    private final MappedLogStream mapped;
+    private long[] tickOffsets = null;
+    private int tickCount = 0;
+    // the number of bytes handed to the writer thread so far
+    private long handedOverBytes = 0;
+    private final ArrayBlockingQueue<LogBuffer> filled = new ArrayBlockingQueue<LogBuffer>(bufferCount + 1);
+    private final ArrayBlockingQueue<LogBuffer> empty = new ArrayBlockingQueue<LogBuffer>(bufferCount);
+    private LogBuffer current;
+    // started the first time there's something for it to do
+    private Thread writerThread = null;
+    private volatile IOException failure = null;
+    private boolean closed = false;
+    
+    /**
+     * Makes a log that goes nowhere, for runs that don't want one: nothing is
+     * opened, and (so long as nothing is written to it) no thread is started
+     */
+    public LogWriter(){
+        name = "nowhere";
+        mapped = null;
+        out = OutputStream.nullOutputStream();
+        current = new LogBuffer(0);
+    }
+    
+    /**
+     * Opens a log file, replacing whatever was there before
+     */
+    public LogWriter(File file){
+        this(file, "none", 0);
+    }
+    
+    /**
+     * Opens a log file that gets compressed as it's written, replacing whatever
+     * was there before
+     * 
+     * @param codec how to compress it: see Compression
+     * @param level how hard to compress it, from 0 to 9
+     */
+    public LogWriter(File file, String codec, int level){
+        name = file.getName();
+        mapped = null;
+        // before we go opening anything
+        Compression.check(codec, level);
+        try{
+            file.delete();
+            out = Compression.compress(new FileOutputStream(file), codec, level);
+        }
+        catch(IOException e){
+            throw new Error("failed to open logging file", e);
+        }
+        current = new LogBuffer(batchBytes * 2);
+        for(int i = 1; i < bufferCount; i++){
+            empty.add(new LogBuffer(batchBytes * 2));
+        }
+    }
+    
+    /**
+     * Opens a log kept in memory-mapped segment files, with an index of where
+     * each tick starts: see MappedLogStream
+     * 
+     * @param file the name the log would have, if it were just the one file
+     * @param segmentBytes the size of each segment file
+     */
+    public LogWriter(File file, int segmentBytes){
+        name = file.getName();
+        try{
+            mapped = new MappedLogStream(file, segmentBytes);
+        }
+        catch(IOException e){
+            throw new Error("failed to open logging file", e);
+        }
+        out = mapped;
+        // tick 0 is everything before the first tick
+        tickOffsets = new long[1024];
+        tickCount = 1;
+        current = new LogBuffer(batchBytes * 2);
+        for(int i = 1; i < bufferCount; i++){
+            empty.add(new LogBuffer(batchBytes * 2));
+        }
+    }
+    
+    /**
+     * Gets the buffer to add log entries to.  This changes as buffers are handed
+     * over, so get it again after each call to endOfTick().
+     */
+    public LogBuffer buffer(){
+        return current;
+    }
+    
+    /**
+     * Notes that everything added to the buffer from now on is for the given tick,
+     * or a later one, for the index of a mapped log.  Ticks must be marked in order:
+     * any that are skipped over are left empty, so a fast-forward's line belongs to
+     * the tick it started on.  For logs that aren't mapped, this does nothing.
+     */
+    public void markTick(int tick){
+        if(mapped == null || tick < tickCount){
+            return;
+        }
+        if(tick >= tickOffsets.length){
+            tickOffsets = Arrays.copyOf(tickOffsets, Math.max(tickOffsets.length * 2, tick + 1));
+        }
+        long offset = handedOverBytes + current.size();
+        for(int i = tickCount; i <= tick; i++){
+            tickOffsets[i] = offset;
+        }
+        tickCount = tick + 1;
+    }
+    
+    /**
+     * Called once everything for a tick has been added to the buffer.  If the buffer
+     * is big enough, this hands it over to be written.
+     */
+    public void endOfTick(){
+        if(current.size() >= batchBytes){
+            handOver();
+        }
+    }
+    
+    /**
+     * Writes out everything that's left, and closes the file.  Calling this more than
+     * once does nothing.
+     *
+     * @throws Error if any of the log could not be written
+     */
+    public void close(){
+        if(closed){
+            return;
+        }
+        closed = true;
+        try{
+            if(current.size() > 0){
+                handOver();
+            }
+            if(writerThread != null){
+                // the writer thread closes the file once it's done with it
+                filled.put(endOfLog);
+                writerThread.join();
+            }
+            else{
+                out.close();
+            }
+            if(mapped != null && failure == null){
+                mapped.writeIndex(tickOffsets, tickCount);
+            }
+        }
+        catch(InterruptedException e){
+            throw new Error("Interrupted while finishing the logs", e);
+        }
+        catch(IOException e){
+            throw new Error("Failed to write logs", e);
+        }
+        checkFailure();
+    }
+    
+    /**
+     * Gives the current buffer to the writer thread, and takes an empty one:
+     * waiting for one to come back, if we have to.
+     */
+    private void handOver(){
+        checkFailure();
+        if(writerThread == null){
+            writerThread = new Thread(this::writeLoop, "log writer for " + name);
+            // a run that blows up shouldn't leave this behind keeping the program alive
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+        try{
+            handedOverBytes += current.size();
+            filled.put(current);
+            current = empty.take();
+        }
+        catch(InterruptedException e){
+            throw new Error("Interrupted while handing over logs", e);
+        }
+    }
+    
+    /**
+     * The writer thread: writes out buffers as they come in, and sends them back empty
+     */
+    private void writeLoop(){
+        try{
+            while(true){
+                LogBuffer next = filled.take();
+                if(next == endOfLog){
+                    // closing a compressed file writes out the last of it, which is
+                    // as much our job as the rest
+                    try{
+                        out.close();
+                    }
+                    catch(IOException e){
+                        if(failure == null){
+                            failure = e;
+                        }
+                    }
+                    return;
+                }
+                // once something has gone wrong, we stop writing, but keep the
+                // buffers moving so the simulation doesn't get stuck waiting on us
+                if(failure == null){
+                    try{
+                        next.writeTo(out);
+                    }
+                    catch(IOException e){
+                        failure = e;
+                    }
+                }
+                next.clear();
+                empty.put(next);
+            }
+        }
+        catch(InterruptedException e){
+            // nobody interrupts this thread: but if they do, there's nothing
+            // sensible left to do but stop
+            return;
+        }
+    }
+    
+    /**
+     * Passes on any failure from the writer thread to the simulation
+     */
+    private void checkFailure(){
+        if(failure != null){
+            throw new Error("Failed to write logs", failure);
+        }
+    }
+}
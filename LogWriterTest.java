@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Tests the LogWriter and its LogBuffers: everything that goes in should come
+ * out in the file, in the same order, once it's closed.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class LogWriterTest
+{
+    File logFile;
+    
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        logFile = File.createTempFile("javatest", null);
+        logFile.deleteOnExit();
+    }
+    
+    @AfterEach
+    public void tearDown()
+    {
+        logFile.delete();
+    }
+    
+    @Test
+    public void numbersMatchToString() throws Exception{
+        LogBuffer buffer = new LogBuffer(0);
+        long[] numbers = {0, 7, -7, 10, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE};
+        StringBuilder expected = new StringBuilder();
+        for(long n : numbers){
+            buffer.append(n).append(' ');
+            expected.append(n).append(' ');
+        }
+        assertEquals(expected.length(), buffer.size());
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        buffer.writeTo(written);
+        assertEquals(expected.toString(), written.toString());
+        buffer.clear();
+        assertEquals(0, buffer.size());
+    }
+    
+    @Test
+    public void everythingGetsWritten() throws Exception{
+        LogWriter log = new LogWriter(logFile);
+        StringBuilder expected = new StringBuilder();
+        // plenty of ticks, so that the buffers go round a good few times
+        for(int tick = 0; tick < 20000; tick++){
+            LogBuffer buffer = log.buffer();
+            buffer.append("Tick ").append(tick).append(": ").append("some status or another").append('\n');
+            expected.append("Tick ").append(tick).append(": some status or another\n");
+            log.endOfTick();
+        }
+        log.close();
+        // closing twice is fine
+        log.close();
+        assertEquals(expected.toString(), new String(Files.readAllBytes(logFile.toPath()), "US-ASCII"));
+    }
+    
+    @Test
+    public void compressedLogsComeBack() throws Exception{
+        for(String codec : new String[]{"none", "gzip", "zlib"}){
+            LogWriter log = new LogWriter(logFile, codec, 6);
+            StringBuilder expected = new StringBuilder();
+            for(int tick = 0; tick < 20000; tick++){
+                log.buffer().append("Truck ").append(tick % 50).append(": Location: (1.00, 2.00)\n");
+                expected.append("Truck ").append(tick % 50).append(": Location: (1.00, 2.00)\n");
+                log.endOfTick();
+            }
+            log.close();
+            
+            // the reader doesn't need to be told which it was
+            ByteArrayOutputStream read = new ByteArrayOutputStream();
+            try(InputStream in = Compression.decompress(new FileInputStream(logFile))){
+                in.transferTo(read);
+            }
+            assertEquals(expected.toString(), read.toString("US-ASCII"), codec);
+            if(!codec.equals("none")){
+                assertTrue(logFile.length() * 10 < expected.length(), codec);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, ()-> new LogWriter(logFile, "zip", 6));
+        assertThrows(IllegalArgumentException.class, ()-> new LogWriter(logFile, "gzip", 10));
+    }
+    
+    @Test
+    public void emptyLogIsEmpty() throws Exception{
+        LogWriter log = new LogWriter(logFile);
+        log.close();
+        assertEquals(0, logFile.length());
+    }
+}
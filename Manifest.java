@@ -0,0 +1,64 @@
+
+/**
+ * A truck's manifest, in compact form: a run of consecutive orders in an
+ * OrderTable.  The executer puts each truck's orders into the table one after
+ * the other, so a manifest is nothing more than where its orders start and how
+ * many there are.
+ * <p>
+ * Unlike a DeQueue of orders, there's nothing to clone here: a manifest can't
+ * be changed (only the states of its orders can, and those live in the table),
+ * so routers can just share it, and keep track of their own progress through it.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class Manifest
+{
+    /**
+     * The table the orders of this manifest are in
+     */
+    public final OrderTable orders;
+    private final int first;
+    private final int count;
+    
+    /**
+     * @param table the table the orders are in
+     * @param firstOrder the id of the first order in the manifest
+     * @param orderCount the number of orders in the manifest
+     */
+    public Manifest(OrderTable table, int firstOrder, int orderCount){
+        orders = table;
+        first = firstOrder;
+        count = orderCount;
+    }
+    
+    /**
+     * Gets the number of orders in the manifest
+     */
+    public int size(){
+        return count;
+    }
+    
+    /**
+     * Gets the id (in the table) of one of the orders in this manifest
+     *
+     * @param index the position of the order in the manifest
+     * @throws IndexOutOfBoundsException if there is no such order
+     */
+    public int orderId(int index){
+        if(index < 0 || index >= count){
+            throw new IndexOutOfBoundsException("Manifest index: " + index + " size: " + count);
+        }
+        return first + index;
+    }
+    
+    /**
+     * Gets one of the orders in this manifest.  The ShipmentOrder is made
+     * on the spot: see OrderTable.get()
+     *
+     * @param index the position of the order in the manifest
+     */
+    public ShipmentOrder get(int index){
+        return orders.get(orderId(index));
+    }
+}
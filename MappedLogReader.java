@@ -0,0 +1,221 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a log kept in memory-mapped segments (see MappedLogStream).  Every segment
+ * and the index are mapped in when the log is opened, which costs next to nothing:
+ * nothing is actually read until it's asked for.  Finding where a tick starts is
+ * then a single lookup in the index, and reading from there is reading straight
+ * out of the mapped segments, without the rest of the log ever being touched.
+ * <p>
+ * It can also be run from the command line, to print out some of the ticks of a
+ * mapped log:
+ * <p>
+ * java MappedLogReader log firstTick [lastTick]
+ * <p>
+ * where log is the name the log would have had, if it were one file.  Binary
+ * logs (see BinaryLog) are turned into text on the way.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class MappedLogReader
+{
+    private final ByteBuffer[] segments;
+    private final int segmentBytes;
+    private final long size;
+    private final LongBuffer tickOffsets;
+    
+    /**
+     * Maps in a log
+     *
+     * @param base the name the log would have, if it were one file
+     * @throws IOException if the log or its index can't be read
+     */
+    public MappedLogReader(File base) throws IOException{
+        ByteBuffer index;
+        try(FileChannel channel = FileChannel.open(MappedLogStream.indexFile(base).toPath(), StandardOpenOption.READ)){
+            index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if(index.limit() < MappedLogStream.INDEX_HEADER || index.getInt(0) != MappedLogStream.INDEX_MAGIC){
+            throw new IOException("Not a mapped log index");
+        }
+        if(index.get(4) != MappedLogStream.INDEX_VERSION){
+            throw new IOException("Can't read version " + index.get(4) + " mapped logs");
+        }
+        segmentBytes = index.getInt(5);
+        segments = new ByteBuffer[index.getInt(9)];
+        size = index.getLong(13);
+        int tickCount = index.getInt(21);
+        tickOffsets = index.position(MappedLogStream.INDEX_HEADER).slice().asLongBuffer();
+        if(tickOffsets.limit() < tickCount){
+            throw new IOException("The index is missing some of its ticks");
+        }
+        tickOffsets.limit(tickCount);
+        
+        for(int i = 0; i < segments.length; i++){
+            try(FileChannel channel = FileChannel.open(MappedLogStream.segmentFile(base, i).toPath(), StandardOpenOption.READ)){
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, 0, segmentBytes);
+            }
+        }
+    }
+    
+    public static void main(String[] args){
+        if(args.length < 2 || args.length > 3){
+            System.err.println("Usage: java MappedLogReader log firstTick [lastTick]");
+            return;
+        }
+        try{
+            MappedLogReader log = new MappedLogReader(new File(args[0]));
+            int first = Integer.parseInt(args[1]);
+            int last = args.length == 3 ? Integer.parseInt(args[2]) : first;
+            InputStream ticks = log.streamTicks(first, last);
+            if(log.isBinaryLog()){
+                // the decoder needs the header first, which is all of tick 0
+                LogDecoder.decode(new SequenceInputStream(log.streamTicks(0, 0), ticks), System.out);
+            }
+            else{
+                ticks.transferTo(System.out);
+                System.out.flush();
+            }
+        }
+        catch(Exception e){
+            throw new Error("Failed to read " + args[0], e);
+        }
+    }
+    
+    /**
+     * Whether this is a BinaryLog, rather than text or something else
+     */
+    public boolean isBinaryLog(){
+        if(size < 4){
+            return false;
+        }
+        // a tiny segment size could spread the magic number out over several segments
+        SegmentStream start = new SegmentStream(0, 4);
+        int magic = 0;
+        for(int i = 0; i < 4; i++){
+            magic = magic << 8 | start.read();
+        }
+        return magic == BinaryLog.MAGIC;
+    }
+    
+    /**
+     * Gets the number of bytes in the log
+     */
+    public long size(){
+        return size;
+    }
+    
+    /**
+     * Gets the last tick in the log
+     */
+    public int getLastTick(){
+        return tickOffsets.limit() - 1;
+    }
+    
+    /**
+     * Gets where a tick starts in the log
+     *
+     * @throws IllegalArgumentException if the log doesn't have that tick
+     */
+    public long offsetOf(int tick){
+        if(tick < 0 || tick > getLastTick()){
+            throw new IllegalArgumentException("Tick " + tick + " isn't in this log: it goes from 0 to " + getLastTick());
+        }
+        return tickOffsets.get(tick);
+    }
+    
+    /**
+     * Gets a stream of the log from the start of the given tick, to the end
+     */
+    public InputStream streamFrom(int tick){
+        long start = offsetOf(tick);
+        return streamAt(start, size - start);
+    }
+    
+    /**
+     * Gets a stream of just the given ticks of the log
+     */
+    public InputStream streamTicks(int first, int last){
+        if(last < first){
+            throw new IllegalArgumentException("Tick " + last + " comes before tick " + first);
+        }
+        long start = offsetOf(first);
+        long end = last < getLastTick() ? offsetOf(last + 1) : size;
+        return streamAt(start, end - start);
+    }
+    
+    /**
+     * Gets a stream of part of the log
+     *
+     * @param start where in the log to start
+     * @param length the number of bytes to read
+     */
+    public InputStream streamAt(long start, long length){
+        if(start < 0 || length < 0 || start + length > size){
+            throw new IndexOutOfBoundsException("Bytes " + start + " to " + (start + length) + " aren't in a log of " + size);
+        }
+        return new SegmentStream(start, start + length);
+    }
+    
+    /**
+     * Reads across the segments, one after another.  The segments are shared, so
+     * each of these only ever uses absolute gets: any number of them can be
+     * reading at once.
+     */
+    private class SegmentStream extends InputStream
+    {
+        private long position;
+        private final long end;
+        
+        SegmentStream(long start, long end){
+            position = start;
+            this.end = end;
+        }
+        
+        @Override
+        public int read(){
+            if(position >= end){
+                return -1;
+            }
+            byte b = segments[(int) (position / segmentBytes)].get((int) (position % segmentBytes));
+            position++;
+            return b & 0xff;
+        }
+        
+        @Override
+        public int read(byte[] bytes, int offset, int length){
+            if(length == 0){
+                return 0;
+            }
+            if(position >= end){
+                return -1;
+            }
+            // only as far as the end of this segment: whoever called us will come back for more
+            int within = (int) (position % segmentBytes);
+            int chunk = (int) Math.min(Math.min(length, segmentBytes - within), end - position);
+            segments[(int) (position / segmentBytes)].get(within, bytes, offset, chunk);
+            position += chunk;
+            return chunk;
+        }
+        
+        @Override
+        public long skip(long count){
+            long skipped = Math.max(0, Math.min(count, end - position));
+            position += skipped;
+            return skipped;
+        }
+        
+        @Override
+        public int available(){
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+}
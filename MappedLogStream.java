@@ -0,0 +1,167 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a log into a series of memory-mapped segment files, all the same size,
+ * which the logstore=mapped option picks instead of one ordinary file.  Writing is
+ * just copying into memory, with the operating system putting it on the disk
+ * whenever it likes; and a MappedLogReader can map the same segments back in and
+ * jump straight to any part of them, without reading the rest.
+ * <p>
+ * A log called "name" is kept in "name.seg0", "name.seg1" and so on, along with
+ * the side index in "name.idx", which says where in the log each tick starts.
+ * The LogWriter keeps track of that as the run goes (see LogWriter.markTick()),
+ * and has it written once the log is done.  The index is:
+ * <ul>
+ * <li>the magic number, then the format version</li>
+ * <li>the segment size, the number of segments, and the number of bytes in the log</li>
+ * <li>the number of ticks, then for each tick, from 0, where it starts in the
+ * log.  Tick 0 is whatever came before the first tick: the header, if the log
+ * has one.  A tick with nothing of its own starts where the one after it does.</li>
+ * </ul>
+ * Every segment but the last is full.  The last one is still the full size, with
+ * the unused part left as zeroes: on most file systems, those don't take up any space.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class MappedLogStream extends OutputStream
+{
+    /**
+     * The first four bytes of every index: "TIDX", in ASCII
+     */
+    public static final int INDEX_MAGIC = 0x54494458;
+    public static final byte INDEX_VERSION = 1;
+    /**
+     * The number of bytes in an index before the tick offsets start
+     */
+    public static final int INDEX_HEADER = 4 + 1 + 4 + 4 + 8 + 4;
+    
+    private final File base;
+    private final int segmentBytes;
+    private MappedByteBuffer segment = null;
+    private int segmentCount = 0;
+    private long size = 0;
+    
+    /**
+     * Starts a new mapped log, getting rid of any old one with the same name
+     *
+     * @param base the name the log would have, if it were one file
+     * @param segmentBytes the size of each segment file
+     */
+    public MappedLogStream(File base, int segmentBytes) throws IOException{
+        if(segmentBytes < 1){
+            throw new IllegalArgumentException("Segments must hold at least one byte");
+        }
+        this.base = base;
+        this.segmentBytes = segmentBytes;
+        // a longer log from last time would leave segments behind that aren't ours
+        int old = 0;
+        while(segmentFile(base, old).delete()){
+            old++;
+        }
+        indexFile(base).delete();
+    }
+    
+    /**
+     * Gets the file that holds one of the segments of a log
+     */
+    public static File segmentFile(File base, int segment){
+        return new File(base.getPath() + ".seg" + segment);
+    }
+    
+    /**
+     * Gets the file that holds the tick index of a log
+     */
+    public static File indexFile(File base){
+        return new File(base.getPath() + ".idx");
+    }
+    
+    @Override
+    public void write(int b) throws IOException{
+        if(segment == null || !segment.hasRemaining()){
+            nextSegment();
+        }
+        segment.put((byte) b);
+        size++;
+    }
+    
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException{
+        while(length > 0){
+            if(segment == null || !segment.hasRemaining()){
+                nextSegment();
+            }
+            int chunk = Math.min(length, segment.remaining());
+            segment.put(bytes, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+            size += chunk;
+        }
+    }
+    
+    /**
+     * Maps in a fresh segment file to carry on writing into
+     */
+    private void nextSegment() throws IOException{
+        // the last segment doesn't need forcing out to the disk: the operating
+        // system gets round to it, and anyone reading it sees it in the meantime
+        try(FileChannel channel = FileChannel.open(segmentFile(base, segmentCount).toPath(),
+                                                   StandardOpenOption.CREATE_NEW,
+                                                   StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE)){
+            // the mapping stays good after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segmentCount++;
+    }
+    
+    /**
+     * Gets the number of bytes written so far
+     */
+    public long size(){
+        return size;
+    }
+    
+    /**
+     * Writes the index that goes with this log.  This must come after the last of
+     * the log is written.
+     *
+     * @param tickOffsets where each tick starts in the log, from tick 0
+     * @param tickCount the number of ticks in tickOffsets
+     */
+    public void writeIndex(long[] tickOffsets, int tickCount) throws IOException{
+        try(DataOutputStream index = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile(base)), 1 << 16))){
+            index.writeInt(INDEX_MAGIC);
+            index.writeByte(INDEX_VERSION);
+            index.writeInt(segmentBytes);
+            index.writeInt(segmentCount);
+            index.writeLong(size);
+            index.writeInt(tickCount);
+            for(int i = 0; i < tickCount; i++){
+                index.writeLong(tickOffsets[i]);
+            }
+        }
+    }
+    
+    /**
+     * Makes sure the last segment is on its way to the disk.  The segments stay
+     * mapped until the garbage collector gets them: Java has no way to unmap them
+     * any sooner.
+     */
+    @Override
+    public void close(){
+        if(segment != null){
+            segment.force();
+            segment = null;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * Tests that a log written into memory-mapped segments comes back out of a
+ * MappedLogReader just as it went in: all of it, or any of its ticks, wherever
+ * the segments happen to split it.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class MappedLogTest
+{
+    static final int ticks = 2000;
+    // small enough that plenty of ticks get split between segments
+    static final int segmentBytes = 1000;
+    File logFile;
+    String[] tickText;
+    
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        logFile = File.createTempFile("javatest", null);
+        logFile.delete();
+        tickText = new String[ticks + 1];
+    }
+    
+    @AfterEach
+    public void tearDown()
+    {
+        int segment = 0;
+        while(MappedLogStream.segmentFile(logFile, segment).delete()){
+            segment++;
+        }
+        MappedLogStream.indexFile(logFile).delete();
+    }
+    
+    /**
+     * Writes a log like the Executer's, with every tick different, and the ticks
+     * that are multiples of 7 left out as if they'd been fast-forwarded
+     */
+    public void writeLog(){
+        LogWriter log = new LogWriter(logFile, segmentBytes);
+        tickText[0] = "The header\n";
+        log.buffer().append(tickText[0]);
+        log.endOfTick();
+        for(int tick = 1; tick <= ticks; tick++){
+            log.markTick(tick);
+            if(tick % 7 == 0){
+                tickText[tick] = "";
+                continue;
+            }
+            tickText[tick] = "Tick " + tick + ": Location: (" + tick * 3 + ".00, 2.00)\n";
+            log.buffer().append(tickText[tick]);
+            log.endOfTick();
+        }
+        log.close();
+    }
+    
+    private String read(InputStream in) throws Exception{
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        in.transferTo(read);
+        return read.toString("US-ASCII");
+    }
+    
+    @Test
+    public void everythingComesBack() throws Exception{
+        writeLog();
+        MappedLogReader reader = new MappedLogReader(logFile);
+        assertEquals(ticks, reader.getLastTick());
+        assertFalse(reader.isBinaryLog());
+        assertEquals(String.join("", tickText), read(reader.streamFrom(0)));
+        assertEquals(reader.size(), reader.offsetOf(0) + read(reader.streamFrom(0)).length());
+        assertTrue(MappedLogStream.segmentFile(logFile, 1).exists());
+    }
+    
+    @Test
+    public void anyTickComesBack() throws Exception{
+        writeLog();
+        MappedLogReader reader = new MappedLogReader(logFile);
+        for(int tick = 0; tick <= ticks; tick++){
+            assertEquals(tickText[tick], read(reader.streamTicks(tick, tick)));
+        }
+        assertEquals(tickText[12] + tickText[13] + tickText[14] + tickText[15], read(reader.streamTicks(12, 15)));
+        // a tick that was skipped starts where the next one does
+        assertEquals(reader.offsetOf(15), reader.offsetOf(14));
+        assertThrows(IllegalArgumentException.class, ()-> reader.streamTicks(ticks + 1, ticks + 1));
+        assertThrows(IllegalArgumentException.class, ()-> reader.streamTicks(5, 4));
+    }
+    
+    @Test
+    public void emptyLogIsEmpty() throws Exception{
+        new LogWriter(logFile, segmentBytes).close();
+        MappedLogReader reader = new MappedLogReader(logFile);
+        assertEquals(0, reader.size());
+        assertEquals(0, reader.getLastTick());
+        assertEquals("", read(reader.streamFrom(0)));
+    }
+}
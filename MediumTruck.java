@@ -11,6 +11,10 @@ public class MediumTruck extends Truck
         super(2, cargo, router, startingPoint);
     }
     
+    MediumTruck(Manifest cargo, Class<? extends Router> router, Point startingPoint){
+        super(2, cargo, router, startingPoint);
+    }
+    
     public double getMoveSpeed(){
         return 6;
     }
@@ -0,0 +1,162 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Every shipment order of a run, kept as plain numbers: the index of the
+ * warehouse it's picked up from, the index of the one it's dropped off at,
+ * and the state it's in.  An order is just its position in the table.
+ * <p>
+ * The big configurations have tens of millions of orders, and as objects each
+ * one was a header, an enum reference and two warehouse references: about 32
+ * bytes, before counting whatever list it was in.  Here, they're 9 bytes each:
+ * or just 5, when there are few enough warehouses that their indices fit in a
+ * short, which is every configuration we've ever had.
+ * ShipmentOrder objects are still around, for the code that wants one, but
+ * they're just a table and a position: all of their state is in here.
+ * <p>
+ * Like FleetState, the numbers can be kept off of the heap: see Buffers.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class OrderTable
+{
+    // looking up enum constants by their ordinal, without making a new array every time
+    private static final ShipmentState[] states = ShipmentState.values();
+    
+    private final Warehouse[] warehouses;
+    // only one of each of these pairs is used: the shorts if they'll do, the ints otherwise
+    private final ShortBuffer shortPickups;
+    private final ShortBuffer shortDestinations;
+    private final IntBuffer pickups;
+    private final IntBuffer destinations;
+    private final ByteBuffer orderStates;
+    private int count = 0;
+    
+    /**
+     * Makes an empty table
+     *
+     * @param places the warehouses that orders can go between: orders refer to
+     * them by their index in this array
+     * @param capacity the most orders that will ever be added
+     * @param offHeap true to keep the orders off of the heap
+     */
+    public OrderTable(Warehouse[] places, int capacity, boolean offHeap){
+        warehouses = places;
+        if(isCompact(places.length)){
+            shortPickups = Buffers.shorts(capacity, offHeap);
+            shortDestinations = Buffers.shorts(capacity, offHeap);
+            pickups = null;
+            destinations = null;
+        }
+        else{
+            shortPickups = null;
+            shortDestinations = null;
+            pickups = Buffers.ints(capacity, offHeap);
+            destinations = Buffers.ints(capacity, offHeap);
+        }
+        orderStates = Buffers.bytes(capacity, offHeap);
+    }
+    
+    /**
+     * Adds a new order, which starts out awaiting pickup
+     *
+     * @param pickup the index of the warehouse to pick the order up from
+     * @param destination the index of the warehouse to drop it off at
+     * @return the id of the new order
+     * @throws IndexOutOfBoundsException if the table is full
+     */
+    public int add(int pickup, int destination){
+        // we don't want to have this happen: callers should be certain it can't
+        if(warehouses[pickup].location.equals(warehouses[destination].location)){
+            throw new Error("Can't move between two warehouses at the same spot!");
+        }
+        if(count == orderStates.capacity()){
+            throw new IndexOutOfBoundsException("The order table is full");
+        }
+        if(shortPickups != null){
+            shortPickups.put(count, (short) pickup);
+            shortDestinations.put(count, (short) destination);
+        }
+        else{
+            pickups.put(count, pickup);
+            destinations.put(count, destination);
+        }
+        orderStates.put(count, (byte) ShipmentState.AWAITING_PICKUP.ordinal());
+        return count++;
+    }
+    
+    /**
+     * Gets an object representing one of the orders.  It's made fresh on every
+     * call, but two of them for the same order are equal.
+     */
+    public ShipmentOrder get(int id){
+        return new ShipmentOrder(this, id);
+    }
+    
+    /**
+     * Whether or not a table with this many warehouses keeps their indices as shorts
+     */
+    public static boolean isCompact(int warehouseCount){
+        return warehouseCount <= Short.MAX_VALUE + 1;
+    }
+    
+    /**
+     * Gets the number of orders in the table
+     */
+    public int size(){
+        return count;
+    }
+    
+    public Warehouse getPickup(int id){
+        if(shortPickups != null){
+            return warehouses[shortPickups.get(id)];
+        }
+        return warehouses[pickups.get(id)];
+    }
+    
+    public Warehouse getDestination(int id){
+        if(shortDestinations != null){
+            return warehouses[shortDestinations.get(id)];
+        }
+        return warehouses[destinations.get(id)];
+    }
+    
+    public ShipmentState getStatus(int id){
+        return states[orderStates.get(id)];
+    }
+    
+    /**
+     * Gets where an order needs to go next: see ShipmentOrder.getTargetWarehouse()
+     */
+    public Warehouse getTargetWarehouse(int id){
+        ShipmentState state = getStatus(id);
+        if(state == ShipmentState.AWAITING_PICKUP){
+            return getPickup(id);
+        }
+        else if(state == ShipmentState.MOVING){
+            return getDestination(id);
+        }
+        throw new IllegalStateException("Package delivered, no target warehouse exists");
+    }
+    
+    /**
+     * Moves an order on to its next stage: see ShipmentOrder.nextState()
+     */
+    public void nextState(int id){
+        switch(getStatus(id)){
+            case AWAITING_PICKUP:
+                orderStates.put(id, (byte) ShipmentState.MOVING.ordinal());
+                return;
+            case MOVING:
+                orderStates.put(id, (byte) ShipmentState.DROPPED_OFF.ordinal());
+                return;
+            case DROPPED_OFF:
+                System.err.println("Error: shipment already completed.  No next state");
+                // fall-through
+            default:
+                throw new IllegalStateException("Shipment state already complete or invalid");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the OrderTable, both on and off of the heap.  The ShipmentOrderTest covers
+ * the state changes of single orders: this is about the table itself.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class OrderTableTest
+{
+    Warehouse[] warehouses;
+    
+    @BeforeEach
+    public void setUp()
+    {
+        warehouses = new Warehouse[5];
+        for(int i = 0; i < 5; i++){
+            warehouses[i] = new Warehouse(new Point(i*10, i*20), 1, i);
+        }
+    }
+    
+    @Test
+    public void onHeap(){
+        checkTable(new OrderTable(warehouses, 20, false));
+    }
+    
+    @Test
+    public void offHeap(){
+        checkTable(new OrderTable(warehouses, 20, true));
+    }
+    
+    private void checkTable(OrderTable table){
+        for(int i = 0; i < 20; i++){
+            assertEquals(i, table.add(i%5, (i+1)%5));
+        }
+        assertEquals(20, table.size());
+        // it's full now
+        assertThrows(IndexOutOfBoundsException.class, ()->table.add(0, 1));
+        // and orders can't go nowhere
+        assertThrows(Error.class, ()->new OrderTable(warehouses, 1, false).add(2, 2));
+        
+        for(int i = 0; i < 20; i++){
+            assertSame(warehouses[i%5], table.getPickup(i));
+            assertSame(warehouses[(i+1)%5], table.getDestination(i));
+            assertEquals(ShipmentState.AWAITING_PICKUP, table.getStatus(i));
+        }
+        
+        // moving one order along leaves the others be
+        table.nextState(7);
+        assertEquals(ShipmentState.MOVING, table.getStatus(7));
+        assertSame(warehouses[3], table.getTargetWarehouse(7));
+        assertEquals(ShipmentState.AWAITING_PICKUP, table.getStatus(6));
+        assertEquals(ShipmentState.AWAITING_PICKUP, table.getStatus(8));
+    }
+    
+    @Test
+    public void ordersAreViews(){
+        OrderTable table = new OrderTable(warehouses, 3, false);
+        table.add(0, 1);
+        table.add(1, 2);
+        ShipmentOrder first = table.get(0);
+        ShipmentOrder again = table.get(0);
+        assertNotSame(first, again);
+        assertEquals(first, again);
+        assertEquals(first.hashCode(), again.hashCode());
+        assertNotEquals(first, table.get(1));
+        
+        // changing one changes the other, since they're the same order
+        first.nextState();
+        assertEquals(ShipmentState.MOVING, again.getStatus());
+        
+        // and an order from another table is a different order, even at the same spot
+        OrderTable other = new OrderTable(warehouses, 3, false);
+        other.add(0, 1);
+        assertNotEquals(first, other.get(0));
+    }
+    
+    @Test
+    public void wideTablesStillWork(){
+        assertTrue(OrderTable.isCompact(5));
+        assertTrue(OrderTable.isCompact(Short.MAX_VALUE + 1));
+        assertFalse(OrderTable.isCompact(Short.MAX_VALUE + 2));
+        
+        // too many warehouses for shorts: the high indices must survive
+        Warehouse[] lots = new Warehouse[Short.MAX_VALUE + 10];
+        for(int i = 0; i < lots.length; i++){
+            lots[i] = new Warehouse(new Point(i, 0), 1, i);
+        }
+        OrderTable table = new OrderTable(lots, 2, false);
+        table.add(0, lots.length - 1);
+        assertSame(lots[lots.length - 1], table.getDestination(0));
+    }
+    
+    @Test
+    public void manifestsRouteLikeQueues(){
+        checkRouting(BadRouter.class);
+        checkRouting(BetterRouter.class);
+    }
+    
+    /**
+     * Routes through the same orders twice: once from a compact manifest, and once
+     * from a DeQueue of them.  Both should go to the same places in the same order.
+     */
+    private void checkRouting(Class<? extends Router> routerClass){
+        OrderTable table = new OrderTable(warehouses, 30, false);
+        // some other truck's orders, to make sure the manifest stays in its range
+        table.add(4, 3);
+        for(int i = 0; i < 12; i++){
+            table.add((i*3)%5, (i*3+2)%5);
+        }
+        Manifest compact = new Manifest(table, 1, 12);
+        assertEquals(12, compact.size());
+        assertThrows(IndexOutOfBoundsException.class, ()->compact.orderId(12));
+        
+        // the DeQueue's orders live in a different table, so both can progress
+        OrderTable otherTable = new OrderTable(warehouses, 30, false);
+        DeQueue<ShipmentOrder> queue = new DeQueue<ShipmentOrder>();
+        for(int i = 0; i < 12; i++){
+            queue.add(otherTable.get(otherTable.add((i*3)%5, (i*3+2)%5)));
+        }
+        
+        try{
+            ShipmentOrder[] compactHold = new ShipmentOrder[2];
+            ShipmentOrder[] queueHold = new ShipmentOrder[2];
+            Router compactRouter = routerClass.getConstructor(Manifest.class, ShipmentOrder[].class)
+                                                .newInstance(compact, compactHold);
+            Router queueRouter = routerClass.getConstructor(DeQueue.class, ShipmentOrder[].class)
+                                                .newInstance(queue, queueHold);
+            Point location = new Point(3, 3);
+            while(true){
+                ShipmentOrder fromCompact = compactRouter.getNextOrder(location);
+                ShipmentOrder fromQueue = queueRouter.getNextOrder(location);
+                if(fromCompact == null){
+                    assertNull(fromQueue);
+                    break;
+                }
+                assertEquals(fromQueue.id, fromCompact.id - 1);
+                location = fromCompact.getTargetWarehouse().location;
+                // and do what a truck would do with it
+                progress(fromCompact, compactHold);
+                progress(fromQueue, queueHold);
+            }
+        }
+        catch(ReflectiveOperationException e){
+            throw new Error("Couldn't build the routers", e);
+        }
+    }
+    
+    private void progress(ShipmentOrder order, ShipmentOrder[] hold){
+        order.nextState();
+        for(int i = 0; i < hold.length; i++){
+            if(order.getStatus() == ShipmentState.MOVING && hold[i] == null){
+                hold[i] = order;
+                return;
+            }
+            if(order.getStatus() == ShipmentState.DROPPED_OFF && order.equals(hold[i])){
+                hold[i] = null;
+                return;
+            }
+        }
+    }
+}
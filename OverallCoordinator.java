@@ -1,11 +1,22 @@
 import javax.swing.JFrame;
 import java.io.FileWriter;
 import java.io.File;
+import java.io.IOException;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This class is responsible for creating and executing the various runs
  * and states of the simulation.  It prepares each of the configuration
  * managers, and spins them off to preform each of their runs.
+ * <p>
+ * When headless, it skips the configuration-by-configuration approach
+ * entirely: every run of every configuration is thrown onto one big
+ * work-stealing pool, most expensive first, so the long runs of the big
+ * configurations don't hold up all of the cheap ones.
  *
  * @author Calum McConnell
  * @version 0.0.1
@@ -15,29 +26,47 @@ public class OverallCoordinator
     /**
      * The main method, responsible for triggering the
      * entire rest of this whole mess of a program to run
+     * 
+     * @param args pass "--headless" to run without any window: this is
+     * much faster, and works on machines without a display
      */
     public static void main(String[] args){
         DeQueue<RunCoordinator> states = new DeQueue<RunCoordinator>();
         
-        // This sets up the window we will be using
-        JFrame window = new JFrame();
-        window.setSize(8000, 5000);
-        window.setTitle("Simulation");
-        window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        window.setVisible(true);
+        boolean headless = false;
+        for(String arg : args){
+            if(arg.equals("--headless")){
+                headless = true;
+            }
+        }
+        
+        // This sets up the window we will be using, if we want one
+        JFrame window = null;
+        if(!headless){
+            window = new JFrame();
+            window.setSize(8000, 5000);
+            window.setTitle("Simulation");
+            window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            window.setVisible(true);
+        }
         
         for(String i : Configuration.confFiles){
             Configuration c = Configuration.readConfigFile(new File(i));
             states.add(new RunCoordinator(c, window));
         }
         
+        if(headless){
+            runSweep(states);
+            return;
+        }
+        
         // the type of the next line is a generic of a generic, so lets make the compiler picture that
         // rather than wrtie it out ourselves.
         var rawStatuses = states.applyFunctionToList( (RunCoordinator t) ->t.start());
         
         // now, lets unpack that mess
         DoublyLinkedList<String> statuses = new DoublyLinkedList<String>();
-        rawStatuses.applyFunctionToList( (DoublyLinkedList<String> s) -> { statuses.append(s); return null;});
+        rawStatuses.forEach(statuses::append);
         
         try(FileWriter logger = new FileWriter("summary-log.csv")){
             statuses.resetFakeQueue();
@@ -49,6 +78,93 @@ public class OverallCoordinator
             throw new Error("Failed to log status summary", e);
         }
         // close the program.
-        window.dispose();
+        if(window != null){
+            window.dispose();
+        }
+    }
+    
+    /**
+     * Runs every run of every configuration, all at once, on a work-stealing pool.
+     * The runs are started most expensive first (according to the estimate the
+     * RunCoordinators give), so that the big ones don't get left until the end.
+     * <p>
+     * Each line of the summary is written as soon as its run finishes, so they
+     * come out in whatever order the runs happen to finish in: that's why each
+     * line starts with the name of its run.
+     * 
+     * @param states the configurations to run
+     */
+    private static void runSweep(DeQueue<RunCoordinator> states){
+        // sort the configurations by cost: there are only a few of them, so
+        // a simple insertion sort is plenty
+        DeQueue<RunCoordinator> byCost = new DeQueue<RunCoordinator>();
+        states.resetFakeQueue();
+        for(int i = 0; i < states.size(); i++){
+            RunCoordinator toPlace = states.fakePop();
+            int dex = 0;
+            while(dex < byCost.size() && byCost.get(dex).estimatedRunCost() >= toPlace.estimatedRunCost()){
+                dex++;
+            }
+            byCost.add(dex, toPlace);
+        }
+        
+        // the work stealing pool takes tasks handed to it from outside in the order
+        // they were given, so the most expensive ones really do get going first
+        ExecutorService pool = Executors.newWorkStealingPool();
+        try(FileWriter logger = new FileWriter("summary-log.csv")){
+            DeQueue<Future<?>> pending = new DeQueue<Future<?>>();
+            byCost.resetFakeQueue();
+            for(int i = 0; i < byCost.size(); i++){
+                RunCoordinator state = byCost.fakePop();
+                for(int run = 0; run < RunCoordinator.runsPerConfig; run++){
+                    final int runNumber = run;
+                    pending.add(pool.submit(() -> {
+                        String name = state.getRunName(runNumber);
+                        String status;
+                        try{
+                            // build it in the task, so we don't have every log file open at once
+                            status = state.buildRun(runNumber).start();
+                        }
+                        catch(Throwable t){
+                            // one bad run doesn't get to spoil the rest of them
+                            status = RunCoordinator.describeFailure(name, t);
+                        }
+                        recordStatus(logger, name + ", " + status);
+                    }));
+                }
+            }
+            
+            // now just wait for them all to be done
+            pending.resetFakeQueue();
+            for(int i = 0; i < pending.size(); i++){
+                pending.fakePop().get();
+            }
+        }
+        catch(IOException e){
+            throw new Error("Failed to log status summary", e);
+        }
+        catch(InterruptedException | ExecutionException e){
+            throw new Error("Failed while waiting for the runs to finish", e);
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Writes a single line to the summary log, flushing it right away so that
+     * the summary can be watched as the sweep goes.  Many runs finish at once,
+     * so only one gets to write at a time.
+     */
+    private static void recordStatus(FileWriter logger, String line){
+        synchronized(logger){
+            try{
+                logger.write(line + "\n");
+                logger.flush();
+            }
+            catch(IOException e){
+                throw new Error("Failed to log status summary", e);
+            }
+        }
     }
 }
@@ -97,6 +97,17 @@ public class Point
      * Is this uneeded and complex? Yes. But it solves a problem that I would otherwise suffer!
      */
     public String doubleToString(double d){
+        return hundredthsToString(toHundredths(d));
+    }
+    
+    /**
+     * Rounds a coordinate to the two decimal places that doubleToString() shows, as
+     * a whole number of hundredths.  This rounds exactly the way doubleToString() does,
+     * quirks and all (a small negative number loses its sign, for one): so turning it
+     * back into a string with hundredthsToString() gives exactly the same text.
+     * That's what lets the binary logs store coordinates as plain numbers.
+     */
+    public static long toHundredths(double d){
         long intPortion = (long) d;
         // get just the decimal
         d -= intPortion;
@@ -115,15 +126,76 @@ public class Point
             intPortion += Math.copySign(1,intPortion);
         }
         
-        return intPortion + "." + decimalDigit1 + decimalDigit2;
+        // the decimals take the sign of the int portion, so that dividing by 100
+        // gives the int portion right back
+        int decimals = decimalDigit1 * 10 + decimalDigit2;
+        if(intPortion < 0){
+            return intPortion * 100 - decimals;
+        }
+        return intPortion * 100 + decimals;
+    }
+    
+    /**
+     * Turns a number from toHundredths() back into text, just as doubleToString() shows it
+     */
+    public static String hundredthsToString(long hundredths){
+        long intPortion = hundredths / 100;
+        int decimals = (int) Math.abs(hundredths % 100);
+        return intPortion + "." + decimals / 10 + decimals % 10;
+    }
+    
+    /**
+     * Writes this point into a log, exactly as toString() shows it.  Trucks make a
+     * new Point every time they move, so toString()'s cache hardly ever helps them:
+     * this skips the Strings altogether, and just writes the digits.
+     */
+    public void appendTo(LogBuffer out){
+        if(cached != null){
+            out.append(cached);
+            return;
+        }
+        appendPoint(out, xPos, yPos);
+    }
+    
+    /**
+     * Writes a pair of coordinates into a log, exactly as toString() would show
+     * them as a Point, without needing the Point
+     */
+    public static void appendPoint(LogBuffer out, double x, double y){
+        out.append('(');
+        appendHundredths(out, toHundredths(x));
+        out.append(", ");
+        appendHundredths(out, toHundredths(y));
+        out.append(')');
+    }
+    
+    /**
+     * Writes a number from toHundredths() into a log, just as hundredthsToString()
+     * shows it
+     */
+    public static void appendHundredths(LogBuffer out, long hundredths){
+        out.append(hundredths / 100);
+        out.append('.');
+        int decimals = (int) Math.abs(hundredths % 100);
+        out.append((char) ('0' + decimals / 10));
+        out.append((char) ('0' + decimals % 10));
     }
     
     /**
      * Determines the distance between two points on the grid.
      */
     public double calculateDistance(Point that){
-        double xDelta2 = Math.pow(this.xPos - that.xPos,2);
-        double yDelta2 = Math.pow(this.yPos - that.yPos,2);
+        return distance(this.xPos, this.yPos, that.xPos, that.yPos);
+    }
+    
+    /**
+     * Determines the distance between two coordinates, without needing a Point
+     * for either of them.  This is the same calculation calculateDistance() does,
+     * down to the last bit.
+     */
+    public static double distance(double x1, double y1, double x2, double y2){
+        double xDelta2 = Math.pow(x1 - x2,2);
+        double yDelta2 = Math.pow(y1 - y2,2);
         return Math.sqrt(xDelta2+yDelta2);
     }
 
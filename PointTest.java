@@ -52,6 +52,45 @@ public class PointTest
         
     }
     
+    @Test
+    public void appendedPointsMatchToString(){
+        // the quirks of the rounding: small negatives lose their sign, and carrying
+        // into the int portion goes away from zero
+        double[] nasty = {-0.5, -0.999, 1.999, -1.999, 0.005, -0.005, 0.994999, 99.995, -99.995,
+                          -9999999999L, 99999999999L, 0.000000009, 2.011, -4.294999, 0, -0.0};
+        String[] expected = {"0.50", "1.00", "2.00", "-2.00"};
+        LogBuffer out = new LogBuffer(0);
+        for(int i = 0; i < expected.length; i++){
+            out.clear();
+            Point.appendHundredths(out, Point.toHundredths(nasty[i]));
+            assertEquals(expected[i], out.toString());
+        }
+        for(double x : nasty){
+            for(double y : nasty){
+                checkAppend(new Point(x, y), out);
+            }
+        }
+        java.util.Random rand = new java.util.Random(17);
+        for(int i = 0; i < 100000; i++){
+            double scale = Math.pow(10, rand.nextInt(8));
+            checkAppend(new Point((rand.nextDouble() - 0.5) * scale, (rand.nextDouble() - 0.5) * scale), out);
+        }
+    }
+    
+    private void checkAppend(Point p, LogBuffer out){
+        out.clear();
+        Point.appendPoint(out, p.xPos, p.yPos);
+        String appended = out.toString();
+        // before and after toString() has cached itself
+        out.clear();
+        p.appendTo(out);
+        assertEquals(appended, out.toString());
+        assertEquals(p.toString(), appended);
+        out.clear();
+        p.appendTo(out);
+        assertEquals(appended, out.toString());
+    }
+    
     @Test
     /**
      * A silly test, intended to see whether java applies a certain
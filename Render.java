@@ -1,15 +1,40 @@
 
 import java.awt.Graphics2D;
+import java.awt.Color;
 
 /**
  * This interface describes an object which can be
  * rendered on screen: compliant objects must provide the
  * contained method
+ * <p>
+ * It also holds the colors things are drawn in.  Those used to be in
+ * Configuration, but java.awt.Color fires up the whole AWT toolkit when it
+ * loads: keeping them here means that only runs that actually draw pay for it.
  *
  * @author Calum McConnell
  * @version 0.0.1
  */
 public interface Render {
+    /**
+     * The color of an empty cargo unit in a truck
+     */
+    public static final Color emptyColor = Color.RED;
+    
+    /**
+     * The color of a filled cargo unit in a truck
+     */
+    public static final Color filledColor = Color.ORANGE;
+    
+    /**
+     * The color of an empty warehouse
+     */
+    public static final Color warehouseColorEmpty = Color.BLACK;
+    
+    /**
+     * The color of a not-empty warehouse
+     */
+    public static final Color warehouseColorBusy = Color.GRAY;
+    
     /**
      * This will draw the object on the canvas.  It expects
      * a Graphics2D object that describes the screen being rendered to.
@@ -19,4 +44,4 @@ public interface Render {
      * use that as the parameter.
      */
     public void draw(Graphics2D g);
-}
\ No newline at end of file
+}
@@ -0,0 +1,229 @@
+import java.awt.BorderLayout;
+import java.awt.Graphics2D;
+import java.io.File;
+import java.io.IOException;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSlider;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Plays a run back from its delta log (see DeltaLog), in a window, without
+ * simulating any of it again.  Delta logs were made for jumping around in: so
+ * the replay can be dragged to any tick, played backwards, and sped up or slowed
+ * down, and it only ever has to read the log from the keyframe before wherever
+ * it's going.  Keep that in mind for reverse play: each step back can mean
+ * playing forwards from the keyframe again, so logs with keyframes closer
+ * together (see the keyframes option) go backwards a lot more smoothly.
+ * <p>
+ * java Replay log [tick]
+ * <p>
+ * starts the replay of the given log, paused at the given tick (or the start).
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class Replay
+{
+    /**
+     * How often the window gets redrawn while the replay is playing
+     */
+    public static final int frameMillis = 30;
+    
+    private final DeltaLogReader reader;
+    private final ReplayClock clock;
+    private final JFrame window;
+    private final SimulationImage image;
+    private final JSlider slider;
+    private final JLabel label;
+    private final JButton playButton;
+    private final JButton reverseButton;
+    private final Timer timer;
+    private long lastFrame;
+    // set while we move the slider ourselves, so it doesn't think it's being dragged
+    private boolean movingSlider = false;
+    
+    public static void main(String[] args){
+        if(args.length < 1 || args.length > 2){
+            System.err.println("Usage: java Replay log [tick]");
+            return;
+        }
+        try{
+            DeltaLogReader reader = new DeltaLogReader(new File(args[0]));
+            int start = args.length == 2 ? Integer.parseInt(args[1]) : 0;
+            SwingUtilities.invokeLater(() -> new Replay(reader, args[0]).show(start));
+        }
+        catch(Exception e){
+            throw new Error("Failed to open " + args[0], e);
+        }
+    }
+    
+    /**
+     * Builds the window for a replay, without showing it yet
+     *
+     * @param reader the log to replay
+     * @param name what to call the window
+     */
+    public Replay(DeltaLogReader reader, String name){
+        this.reader = reader;
+        clock = new ReplayClock(reader.getLastTick());
+        
+        // we don't have the config: but the run was drawn on a canvas with everything
+        // in it, so we make one just big enough for where everything started
+        double width = Configuration.objectSize;
+        double height = Configuration.objectSize;
+        for(int i = 0; i < reader.getWarehouseCount(); i++){
+            width = Math.max(width, reader.getWarehouseLocation(i).xPos);
+            height = Math.max(height, reader.getWarehouseLocation(i).yPos);
+        }
+        for(int i = 0; i < reader.getTruckCount(); i++){
+            width = Math.max(width, reader.getTruckX(i));
+            height = Math.max(height, reader.getTruckY(i));
+        }
+        // the same sizing as the WindowRenderer uses
+        image = new SimulationImage(Math.min(650.0 / height, 1300.0 / width));
+        for(int i = 0; i < reader.getTruckCount(); i++){
+            image.add(new TruckPicture(i));
+        }
+        for(int i = 0; i < reader.getWarehouseCount(); i++){
+            image.add(new WarehousePicture(i));
+        }
+        
+        slider = new JSlider(0, clock.getLastTick(), 0);
+        slider.addChangeListener((e) -> {
+            if(!movingSlider){
+                clock.seek(slider.getValue());
+                show(clock.getTick());
+            }
+        });
+        label = new JLabel();
+        playButton = new JButton("Play");
+        playButton.addActionListener((e) -> {
+            if(clock.isPlaying()){
+                clock.pause();
+            }
+            else{
+                clock.play();
+                lastFrame = System.nanoTime();
+            }
+            show(clock.getTick());
+        });
+        reverseButton = new JButton("Backwards");
+        reverseButton.addActionListener((e) -> {
+            clock.setReverse(!clock.isReverse());
+            show(clock.getTick());
+        });
+        JButton slower = new JButton("Slower");
+        slower.addActionListener((e) -> {
+            clock.slower();
+            show(clock.getTick());
+        });
+        JButton faster = new JButton("Faster");
+        faster.addActionListener((e) -> {
+            clock.faster();
+            show(clock.getTick());
+        });
+        
+        JPanel controls = new JPanel(new BorderLayout());
+        JPanel buttons = new JPanel();
+        buttons.add(playButton);
+        buttons.add(reverseButton);
+        buttons.add(slower);
+        buttons.add(faster);
+        buttons.add(label);
+        controls.add(buttons, BorderLayout.NORTH);
+        controls.add(slider, BorderLayout.SOUTH);
+        
+        window = new JFrame();
+        window.setTitle("Replay of " + name);
+        window.setSize(1366, 768);
+        window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        window.add(image, BorderLayout.CENTER);
+        window.add(controls, BorderLayout.SOUTH);
+        
+        // the timer runs on the Swing thread, like everything else here: so none of
+        // this needs any locking
+        timer = new Timer(frameMillis, (e) -> {
+            long now = System.nanoTime();
+            int tick = clock.advance(now - lastFrame);
+            lastFrame = now;
+            show(tick);
+        });
+    }
+    
+    /**
+     * Shows the window, at the given tick
+     */
+    public void show(int tick){
+        if(!window.isVisible()){
+            window.setVisible(true);
+            timer.start();
+        }
+        clock.seek(tick);
+        try{
+            if(reader.getTick() != clock.getTick()){
+                reader.seek(clock.getTick());
+            }
+        }
+        catch(IOException e){
+            throw new Error("Failed to read the log", e);
+        }
+        movingSlider = true;
+        slider.setValue(reader.getTick());
+        movingSlider = false;
+        playButton.setText(clock.isPlaying() ? "Pause" : "Play");
+        reverseButton.setText(clock.isReverse() ? "Forwards" : "Backwards");
+        label.setText("Tick " + reader.getTick() + " of " + reader.getLastTick() + ", at " + clock.getSpeed() + "x");
+        image.repaint();
+    }
+    
+    /**
+     * Draws a warehouse as it was at the tick we're showing
+     */
+    private class WarehousePicture implements Render
+    {
+        private final int index;
+        
+        WarehousePicture(int warehouse){
+            index = warehouse;
+        }
+        
+        public void draw(Graphics2D g){
+            boolean busy = reader.getEnteringCount(index) + reader.getLeavingCount(index) > 0;
+            Warehouse.draw(g, reader.getWarehouseLocation(index), busy);
+        }
+    }
+    
+    /**
+     * Draws a truck as it was at the tick we're showing, just like Truck.draw():
+     * except that the log only says how much cargo there was, not which units it
+     * was in, so the full ones are all drawn first
+     */
+    private class TruckPicture implements Render
+    {
+        private final int index;
+        
+        TruckPicture(int truck){
+            index = truck;
+        }
+        
+        public void draw(Graphics2D g){
+            // trucks waiting in a warehouse aren't drawn
+            if(reader.isPaused(index)){
+                return;
+            }
+            double y = reader.getTruckY(index) - Configuration.objectSize/2;
+            int capacity = reader.getCapacity(index);
+            double x = reader.getTruckX(index) - Configuration.objectSize * capacity / 2;
+            for(int i = 0; i < capacity; i++){
+                g.setColor(i < reader.getCargo(index) ? filledColor : emptyColor);
+                SimulationImage.fillRectangle(g, x, y, Configuration.objectSize, Configuration.objectSize);
+                x += Configuration.objectSize;
+            }
+        }
+    }
+}
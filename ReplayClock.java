@@ -0,0 +1,142 @@
+
+/**
+ * Keeps time for a Replay: which tick it's showing, and how fast (and which way)
+ * it's going.  This knows nothing about windows or logs, it just turns the time
+ * that has passed into a tick.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class ReplayClock
+{
+    /**
+     * How many ticks go by each second, at a speed of 1
+     */
+    public static final double baseTicksPerSecond = 20;
+    /**
+     * The slowest and fastest a replay can go
+     */
+    public static final double minSpeed = 1.0 / 16;
+    public static final double maxSpeed = 4096;
+    
+    private final int lastTick;
+    // where we are, in ticks: fractions and all, so slow speeds still get somewhere
+    private double position = 0;
+    private double speed = 1;
+    private boolean reverse = false;
+    private boolean playing = false;
+    
+    /**
+     * @param lastTick the last tick there is to show: the first is 0
+     */
+    public ReplayClock(int lastTick){
+        if(lastTick < 0){
+            throw new IllegalArgumentException("There's no replaying a run with no ticks");
+        }
+        this.lastTick = lastTick;
+    }
+    
+    /**
+     * Moves the clock along by however much time has passed, if it's playing.
+     * Running off either end stops it there.
+     *
+     * @param elapsedNanos how long it has been since the last call
+     * @return the tick to show now
+     */
+    public int advance(long elapsedNanos){
+        if(playing){
+            double ticks = elapsedNanos / 1e9 * baseTicksPerSecond * speed;
+            position += reverse ? -ticks : ticks;
+            if(position <= 0){
+                position = 0;
+                playing = false;
+            }
+            else if(position >= lastTick){
+                position = lastTick;
+                playing = false;
+            }
+        }
+        return getTick();
+    }
+    
+    /**
+     * Gets the tick to show: the one we're part of the way through
+     */
+    public int getTick(){
+        return (int) position;
+    }
+    
+    public int getLastTick(){
+        return lastTick;
+    }
+    
+    /**
+     * Jumps straight to a tick, without changing whether we're playing
+     */
+    public void seek(int tick){
+        position = Math.max(0, Math.min(lastTick, tick));
+    }
+    
+    /**
+     * Starts playing, from wherever we are.  If that's the end we're heading for,
+     * we start over from the other end.
+     */
+    public void play(){
+        if(!reverse && getTick() >= lastTick){
+            position = 0;
+        }
+        else if(reverse && position <= 0){
+            position = lastTick;
+        }
+        playing = true;
+    }
+    
+    public void pause(){
+        playing = false;
+    }
+    
+    public boolean isPlaying(){
+        return playing;
+    }
+    
+    /**
+     * Sets whether time runs backwards
+     */
+    public void setReverse(boolean backwards){
+        reverse = backwards;
+    }
+    
+    public boolean isReverse(){
+        return reverse;
+    }
+    
+    /**
+     * Sets how many times faster than baseTicksPerSecond to go
+     *
+     * @throws IllegalArgumentException if that's faster or slower than we go
+     */
+    public void setSpeed(double multiplier){
+        if(!(multiplier >= minSpeed && multiplier <= maxSpeed)){
+            throw new IllegalArgumentException("Replays go from " + minSpeed + " to " + maxSpeed + " times speed, not " + multiplier);
+        }
+        speed = multiplier;
+    }
+    
+    public double getSpeed(){
+        return speed;
+    }
+    
+    /**
+     * Doubles the speed, up to the fastest we go
+     */
+    public void faster(){
+        speed = Math.min(maxSpeed, speed * 2);
+    }
+    
+    /**
+     * Halves the speed, down to the slowest we go
+     */
+    public void slower(){
+        speed = Math.max(minSpeed, speed / 2);
+    }
+}
@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a ReplayClock turns time into the right ticks: at any speed, in
+ * either direction, and without ever running off the ends of the run.
+ *
+ * @author  Calum McConnell
+ * @version 0.0.1
+ */
+public class ReplayClockTest
+{
+    static final long second = 1_000_000_000L;
+    
+    @Test
+    public void pausedClocksStayPut(){
+        ReplayClock clock = new ReplayClock(1000);
+        assertEquals(0, clock.advance(10 * second));
+        clock.seek(40);
+        assertEquals(40, clock.advance(10 * second));
+    }
+    
+    @Test
+    public void playingAtSpeed(){
+        ReplayClock clock = new ReplayClock(1000);
+        clock.play();
+        assertEquals((int) ReplayClock.baseTicksPerSecond, clock.advance(second));
+        clock.faster();
+        assertEquals(2, clock.getSpeed());
+        assertEquals((int) ReplayClock.baseTicksPerSecond * 3, clock.advance(second));
+        // slow enough that one call isn't a whole tick: it still adds up
+        clock.setSpeed(ReplayClock.minSpeed);
+        int before = clock.getTick();
+        for(int i = 0; i < 16; i++){
+            clock.advance(second / 20);
+        }
+        assertEquals(before + 1, clock.getTick());
+    }
+    
+    @Test
+    public void playingBackwards(){
+        ReplayClock clock = new ReplayClock(1000);
+        clock.seek(100);
+        clock.setReverse(true);
+        clock.play();
+        assertEquals(100 - (int) ReplayClock.baseTicksPerSecond, clock.advance(second));
+        // and it stops at the start, rather than going past it
+        assertEquals(0, clock.advance(100 * second));
+        assertFalse(clock.isPlaying());
+        // playing again starts back at the end
+        clock.play();
+        assertEquals(1000, clock.getTick());
+    }
+    
+    @Test
+    public void stoppingAtTheEnd(){
+        ReplayClock clock = new ReplayClock(50);
+        clock.play();
+        assertEquals(50, clock.advance(100 * second));
+        assertFalse(clock.isPlaying());
+        clock.play();
+        assertEquals(0, clock.getTick());
+        assertTrue(clock.isPlaying());
+    }
+    
+    @Test
+    public void seekingIsClamped(){
+        ReplayClock clock = new ReplayClock(50);
+        clock.seek(-5);
+        assertEquals(0, clock.getTick());
+        clock.seek(500);
+        assertEquals(50, clock.getTick());
+    }
+    
+    @Test
+    public void speedLimits(){
+        ReplayClock clock = new ReplayClock(50);
+        assertThrows(IllegalArgumentException.class, ()-> clock.setSpeed(0));
+        assertThrows(IllegalArgumentException.class, ()-> clock.setSpeed(ReplayClock.maxSpeed * 2));
+        assertThrows(IllegalArgumentException.class, ()-> clock.setSpeed(Double.NaN));
+        assertThrows(IllegalArgumentException.class, ()-> new ReplayClock(-1));
+        for(int i = 0; i < 30; i++){
+            clock.faster();
+        }
+        assertEquals(ReplayClock.maxSpeed, clock.getSpeed());
+        for(int i = 0; i < 30; i++){
+            clock.slower();
+        }
+        assertEquals(ReplayClock.minSpeed, clock.getSpeed());
+    }
+}
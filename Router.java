@@ -33,6 +33,16 @@ public abstract class Router
      */
     public abstract ShipmentOrder getNextOrder(Point currentLocation);
     
+    /**
+     * The same as getNextOrder(Point), for a truck that keeps its location as
+     * two numbers rather than a Point (see FleetState).  This one just makes the
+     * Point: routers that can do without one should override it, since trucks
+     * call this one every time they finish at a warehouse.
+     */
+    public ShipmentOrder getNextOrder(double x, double y){
+        return getNextOrder(new Point(x, y));
+    }
+    
     /**
      * This method is used by subclasses to increase the amount of time
      * the router has been executing.  It is to be called at the end of
@@ -3,16 +3,34 @@ import javax.swing.JFrame;
 
 /**
  * Coordinates the runs of a given configuration state
+ * <p>
+ * Each run has its own random number generator, trucks, warehouses and
+ * log file, so they don't depend on each other at all.  When running headless,
+ * the OverallCoordinator takes advantage of that: it builds our runs one by one
+ * with buildRun(), and throws them onto its own pool along with everyone else's
+ * (see OverallCoordinator.runSweep()).  start() runs them one at a time, which
+ * is what a window needs: there's only one, and ten runs fighting over it would
+ * be quite the sight.
  *
  * @author Calum McConnell
  * @version 0.0.1
  */
 public class RunCoordinator
 {
+    /**
+     * The number of runs (each with a different seed) done for each configuration
+     */
+    public static final int runsPerConfig = 10;
+    
     private final DeQueue<Executer> runs = new DeQueue<Executer>();
     private final Configuration runConfig;
+    // null when running headless
     private final JFrame window;
     
+    /**
+     * @param conf the configuration to run
+     * @param win the window to draw the runs into, or null to run them headless
+     */
     public RunCoordinator(Configuration conf, JFrame win){
         runConfig = conf;
         window = win;
@@ -21,13 +39,12 @@ public class RunCoordinator
     /**
      * Builds and executes each of the runs it was charged with
      * managing.
-     * 
-     * @return a list of the string statuses of each run
+     *
+     * @return a list of the string statuses of each run, in seed order
      */
     public DoublyLinkedList<String> start(){
-        for(int i = 0; i < 10; i++){
-            Executer e = new Executer(runConfig, runConfig.initialRandomSeed+i,window,runConfig.name + i);
-            runs.add(e);
+        for(int i = 0; i < runsPerConfig; i++){
+            runs.add(buildRun(i));
         }
         
         // Poor mans for-each loop.  I'll probably learn to implement an Iterable
@@ -35,4 +52,60 @@ public class RunCoordinator
         DoublyLinkedList<String> statuses = runs.applyFunctionToList( (Executer e) -> e.start() );
         return statuses;
     }
+    
+    /**
+     * Builds (but doesn't start) one of the runs of this configuration.
+     * 
+     * @param runNumber which of the runs to build, from 0 to runsPerConfig-1:
+     * this determines the seed and the log file name
+     * @return the run, ready to be started
+     */
+    public Executer buildRun(int runNumber){
+        // each run gets its own renderer: they're cheap, and it keeps runs seperate
+        RunObserver observer = null;
+        if(window != null){
+            observer = new WindowRenderer(window);
+        }
+        long seed = runConfig.initialRandomSeed+runNumber;
+        if(runConfig.engine.equals("event")){
+            return new EventExecuter(runConfig, seed, observer, getRunName(runNumber));
+        }
+        return new Executer(runConfig, seed, observer, getRunName(runNumber));
+    }
+    
+    /**
+     * Gets the name of one of the runs of this configuration: this is also
+     * the name of its log file
+     */
+    public String getRunName(int runNumber){
+        return runConfig.name + runNumber;
+    }
+    
+    /**
+     * A rough guess at how expensive one run of this configuration is, in
+     * no particular units.  Every tick costs about one unit per truck and
+     * warehouse, and the number of ticks grows with the number of orders
+     * and how far apart things are.  It's only used to decide what to start
+     * first, so it doesn't need to be any better than that.
+     */
+    public double estimatedRunCost(){
+        double entities = runConfig.numSmallTrucks + runConfig.numMediumTrucks
+                            + runConfig.numLargeTrucks + runConfig.numWarehouses;
+        double distance = runConfig.canvasWidth + runConfig.canvasHeight;
+        return entities * runConfig.numOrdersPerTruck * distance;
+    }
+    
+    /**
+     * Reports a run that failed, and produces the status line that stands
+     * in for it in the summary.
+     * 
+     * @param runName the name of the run that failed
+     * @param cause whatever it was that was thrown
+     * @return a status line describing the failure
+     */
+    public static String describeFailure(String runName, Throwable cause){
+        System.err.println("Run " + runName + " failed");
+        cause.printStackTrace();
+        return "Run Failed!  run, " + runName + ", cause, " + cause;
+    }
 }
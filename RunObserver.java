@@ -0,0 +1,30 @@
+
+/**
+ * Something that wants to watch a run as it happens.  The only one
+ * of these right now is the WindowRenderer, which draws the run on screen:
+ * but an Executer with no observer at all is perfectly happy, and runs
+ * flat-out without touching any of the graphics code.
+ * <p>
+ * This interface deliberately doesn't mention any Swing or AWT types, so
+ * that a headless run never has to load them.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public interface RunObserver {
+    /**
+     * Called once the simulation objects have been built, but before the
+     * first tick is evaluated.
+     *
+     * @param config the configuration the run is using
+     * @param trucks every truck in the run
+     * @param warehouses every warehouse in the run
+     */
+    public void prepare(Configuration config, DoublyLinkedList<Truck> trucks,
+                        DoublyLinkedList<Warehouse> warehouses);
+    
+    /**
+     * Called at the end of each tick, once every object has had its action.
+     */
+    public void tickComplete();
+}
@@ -18,4 +18,12 @@ public interface Schedule {
      * Will store the object’s current information into a log file.
      */ 
     public String status();
+    /**
+     * Writes the same thing status() would say straight into a log buffer,
+     * without making a String of it first.  Anything that gets logged every
+     * tick should override this: the default just copies in status().
+     */
+    public default void appendStatus(LogBuffer out){
+        out.append(status());
+    }
 }
@@ -7,36 +7,63 @@
  * destination warehouse.  A tuple is needed because we can't just
  * have a list of destinations and a list of pickups: a pickup needs
  * to be brought to a specific destination, not a random one!
+ * <p>
+ * The order itself actually lives in an OrderTable: this is just a way of
+ * pointing at it.  There can be any number of these pointing at the same
+ * order, and they're all equal to each other.
  *
  * @author Calum McConnell
  * @version 0.0.1
  */
 public class ShipmentOrder
 {
-    private ShipmentState state;
+    private final OrderTable table;
     
-    // Final members may be made public without breaking encapsulation if:
-    //      A) they are immutable
-    //      B) the object referred to is shared anywas
-    // B) is true here: so we just make them public, to make the API simpler
-    public final Warehouse pickup;
-    public final Warehouse destination;
+    /**
+     * The position of this order in its table
+     */
+    public final int id;
     
+    /**
+     * Makes a brand new order, in a table of its own
+     */
     public ShipmentOrder(Warehouse start, Warehouse end){
-        pickup = start;
-        destination = end;
-        state= ShipmentState.AWAITING_PICKUP;
-        // we don't want to have this happen: callers should be certain it can't
-        if(start.location.equals(end.location)){
-            throw new Error("Can't move between two warehouses at the same spot!");
-        }
+        this(tableOfOne(start, end), 0);
+    }
+    
+    /**
+     * Makes an object representing an order that is already in a table
+     */
+    public ShipmentOrder(OrderTable orders, int orderId){
+        table = orders;
+        id = orderId;
+    }
+    
+    private static OrderTable tableOfOne(Warehouse start, Warehouse end){
+        OrderTable retval = new OrderTable(new Warehouse[]{start, end}, 1, false);
+        retval.add(0, 1);
+        return retval;
+    }
+    
+    /**
+     * Gets the warehouse this order is picked up from
+     */
+    public Warehouse getPickup(){
+        return table.getPickup(id);
+    }
+    
+    /**
+     * Gets the warehouse this order is dropped off at
+     */
+    public Warehouse getDestination(){
+        return table.getDestination(id);
     }
     
     /**
      * Gets the current status of the cargo being shipped
      */
     public ShipmentState getStatus(){
-        return state;
+        return table.getStatus(id);
     }
     
     /**
@@ -45,35 +72,30 @@ public class ShipmentOrder
      * otherwise, its the destination
      */
     public Warehouse getTargetWarehouse(){
-        if(state == ShipmentState.AWAITING_PICKUP){
-            return pickup;
-        }
-        else if(state == ShipmentState.MOVING){
-            return destination;
-        }
-        throw new IllegalStateException("Package delivered, no target warehouse exists");
+        return table.getTargetWarehouse(id);
     }
     
     /**
      * Moves the current shipment state to the next stage
-     * 
+     *
      * @throws IllegalStateException if the shipment is complete or invalid
      */
     public void nextState(){
-        switch(state){
-            case AWAITING_PICKUP:
-                state = ShipmentState.MOVING;
-                return;
-            case MOVING:
-                state = ShipmentState.DROPPED_OFF;
-                return;
-            case DROPPED_OFF:
-                System.err.println("Error: shipment already completed.  No next state");
-                // fall-through
-            default:
-                throw new IllegalStateException("Shipment state already complete or invalid");
+        table.nextState(id);
+    }
+    
+    /**
+     * Two orders are the same if they point to the same spot in the same table
+     */
+    public boolean equals(Object o){
+        if(! (o instanceof ShipmentOrder)){
+            return false;
         }
+        ShipmentOrder that = (ShipmentOrder) o;
+        return table == that.table && id == that.id;
+    }
+    
+    public int hashCode(){
+        return System.identityHashCode(table) * 31 + id;
     }
 }
-
- 
\ No newline at end of file
@@ -63,14 +63,14 @@ public class ShipmentOrderTest
                 // there is no reason an assert can't be done in a lambda
                 // (other than irrelevant sillikness like "moral decency")
                 assertEquals(ShipmentState.AWAITING_PICKUP, t.getStatus());
-                assertEquals(t.pickup,t.getTargetWarehouse());
+                assertEquals(t.getPickup(),t.getTargetWarehouse());
                 t.nextState();
                 
                 // okay, perhaps this is ugly and unecessary
                 // but the world betrayed me, and now it's time for my revenge!
                 // THE WORLD SHALL FEAR LAMBDA-MAN!
                 assertEquals(ShipmentState.MOVING, t.getStatus());
-                assertEquals(t.destination, t.getTargetWarehouse());
+                assertEquals(t.getDestination(), t.getTargetWarehouse());
                 t.nextState();
                 
                 // dang, now Superman showed up and tried to fight me
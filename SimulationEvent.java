@@ -0,0 +1,79 @@
+
+/**
+ * One thing that happened during a run, as handed out by an EventBus.  These
+ * are made once, when the bus is, and then filled in over and over again: so a
+ * subscriber must not hang on to one after its onEvent() returns.  Copy out
+ * whatever is needed instead.
+ * <p>
+ * Not every field means something for every kind of event: the ones that
+ * don't are -1 (or 0, for the coordinates).
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class SimulationEvent
+{
+    /**
+     * A truck arrived at a warehouse, and joined its entry queue.  The
+     * coordinates are the warehouse's.
+     */
+    public static final byte JOINED_QUEUE = Truck.JOINED_QUEUE;
+    /**
+     * A truck picked up a piece of cargo, at the given warehouse
+     */
+    public static final byte PICKED_UP = Truck.PICKED_UP;
+    /**
+     * A truck dropped off a piece of cargo, at the given warehouse
+     */
+    public static final byte DROPPED_OFF = Truck.DROPPED_OFF;
+    /**
+     * A warehouse took a truck out of its entry queue, into a loading dock
+     */
+    public static final byte DOCKED = 4;
+    /**
+     * A truck's router picked where it goes next: the warehouse, and its
+     * coordinates.  A truck with nowhere left to go gets a warehouse of -1,
+     * and is done for the run.
+     */
+    public static final byte ROUTED = 5;
+    /**
+     * Every truck and warehouse has finished with this tick.  Only the tick is
+     * filled in.
+     */
+    public static final byte TICK_END = 6;
+    
+    public byte kind;
+    public int tick;
+    public int truck;
+    public int warehouse;
+    public double x;
+    public double y;
+    
+    /**
+     * Gets the name of a kind of event, for printing
+     */
+    public static String kindName(byte kind){
+        switch(kind){
+            case JOINED_QUEUE:
+                return "joined queue";
+            case PICKED_UP:
+                return "picked up";
+            case DROPPED_OFF:
+                return "dropped off";
+            case DOCKED:
+                return "docked";
+            case ROUTED:
+                return "routed";
+            case TICK_END:
+                return "tick end";
+            default:
+                throw new IllegalArgumentException("No such event: " + kind);
+        }
+    }
+    
+    @Override
+    public String toString(){
+        return "Tick " + tick + ": " + kindName(kind) + ", truck " + truck + ", warehouse " + warehouse
+               + " at (" + x + ", " + y + ")";
+    }
+}
@@ -1,6 +1,7 @@
 import javax.swing.JComponent;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 
 
 /**
@@ -30,9 +31,10 @@ public class SimulationImage extends JComponent
         // re-scale
         graph.scale(scaleFactor,scaleFactor);
         
-        objects.resetFakeQueue();
-        for(int i = 0; i < objects.size(); i++){
-            objects.fakePop().draw(graph);
+        // this runs on the Swing thread: so it has its own cursor, rather than
+        // sharing the fake queue with whoever else is reading the list
+        for(Render obj : objects){
+            obj.draw(graph);
         }
         
         //de-scale
@@ -40,4 +42,17 @@ public class SimulationImage extends JComponent
 
     }
     
+    /**
+     * Fills a rectangle on the canvas, in whatever color the graphics object is
+     * currently set to.  We use a high-precision Rectangle2D.Double, mostly because I
+     * don't want to write casts from our double-based points into their integer-based
+     * coradinates.
+     * <p>
+     * The Render objects call this, rather than building the rectangles in their own
+     * draw() methods, so that just loading a Truck or Warehouse doesn't need any of the
+     * geometry classes: that keeps headless runs free of AWT entirely.
+     */
+    public static void fillRectangle(Graphics2D g, double x, double y, double width, double height){
+        g.fill(new Rectangle2D.Double(x, y, width, height));
+    }
 }
@@ -11,6 +11,10 @@ public class SmallTruck extends Truck
         super(1, cargo, router, startingPoint);
     }
     
+    SmallTruck(Manifest cargo, Class<? extends Router> router, Point startingPoint){
+        super(1, cargo, router, startingPoint);
+    }
+    
     public double getMoveSpeed(){
         return 9;
     }
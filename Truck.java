@@ -1,6 +1,5 @@
 import java.awt.Graphics2D;
 import java.awt.Graphics;
-import java.awt.geom.Rectangle2D;
 import javax.swing.JComponent;
 
 import java.lang.reflect.Constructor;
@@ -16,17 +15,35 @@ import java.lang.reflect.Constructor;
  */
 public abstract class Truck implements Schedule, Render
 {
+    /**
+     * The things a truck can do that get noted in its next status: joining the
+     * entry queue of a warehouse, and picking up or dropping off cargo.  These are
+     * the codes the binary logs use for them.
+     */
+    public static final byte JOINED_QUEUE = 1;
+    public static final byte PICKED_UP = 2;
+    public static final byte DROPPED_OFF = 3;
+    
+    /**
+     * The flags at the start of a truck's entry in a binary log
+     */
+    public static final byte PAUSED_FLAG = 1;
+    public static final byte COMPLETE_FLAG = 2;
+    
     private final ShipmentOrder[] currentCargo;
-    private final DeQueue<ShipmentOrder> manifest;
     private final Router router;
     private ShipmentOrder currentOrder;
-    private Point currentLocation;
-    private boolean paused = false;
-    // defer whole-manifest traversals when possible
-    private boolean complete = false;
-    private final StringBuilder statusString;
-    private int ticksOfFullCargo = 0;
-    private int cargoCount =0;
+    // our position in the run's list of trucks: set once the run is built
+    private int id = -1;
+    // where we tell everyone what we did, if anyone is listening: see EventBus
+    private EventBus bus = null;
+    // Where we are, where we're going, our cargo count, whether we're paused
+    // or complete, and what we've done since our last status all live in here,
+    // rather than in fields: see FleetState.  What's left here is what doesn't
+    // fit in a column of numbers: the router, which keeps a live reference to
+    // the cargo hold, and the orders in it, which are whatever the router hands us.
+    private FleetState state;
+    private int slot = 0;
     
     
     /**
@@ -51,23 +68,50 @@ public abstract class Truck implements Schedule, Render
         int cargoSize,
         DeQueue<ShipmentOrder> cargoManifest,
         Class<? extends Router> routerClass,
+        Point startingPoint){
+            // the router takes any kind of DeQueue: an ArrayDeQueue included
+            this(cargoSize, DeQueue.class, cargoManifest, routerClass, startingPoint);
+    }
+    
+    /**
+     * Creates a truck working from a compact manifest: see Manifest.  The router
+     * class needs a constructor that takes one of those.
+     */
+    public Truck(
+        int cargoSize,
+        Manifest cargoManifest,
+        Class<? extends Router> routerClass,
+        Point startingPoint){
+            this(cargoSize, Manifest.class, cargoManifest, routerClass, startingPoint);
+    }
+    
+    /**
+     * Does the actual work of the constructors above: the only difference between
+     * them is which of the router's constructors we use.
+     * 
+     * @param manifestType the class of manifest that the router's constructor takes
+     */
+    private Truck(
+        int cargoSize,
+        Class<?> manifestType,
+        Object cargoManifest,
+        Class<? extends Router> routerClass,
         Point startingPoint){
             currentCargo = new ShipmentOrder[cargoSize];
-            manifest = cargoManifest;
-            currentLocation = startingPoint;
-            
-            // make extra sure nobody can screw with our orders
-            manifest.lock();
+            // we start off with a state all to ourselves
+            state = new FleetState(1);
+            state.place(slot, startingPoint.xPos, startingPoint.yPos, getMoveSpeed());
             
-            // we use a StringBuilder to build our strings.  that's becuase the building
-            // and use of these strings is on the preformance critical path: it is 3
-            // orders of magnitude faster than standard string concat methods. 
-            statusString = new StringBuilder();
+            // make extra sure nobody can screw with our orders.  Compact
+            // manifests can't be changed anyways.
+            if(cargoManifest instanceof DoublyLinkedList){
+                ((DoublyLinkedList<?>) cargoManifest).lock();
+            }
             
             // Now, lets create our router!
             try{
                 Constructor<? extends Router> routerFactory = 
-                    routerClass.getConstructor(cargoManifest.getClass(),ShipmentOrder[].class);
+                    routerClass.getConstructor(manifestType,ShipmentOrder[].class);
                 router = routerFactory.newInstance(cargoManifest,currentCargo);
                 // I could have done this without reflection, by building the router seperately
                 // and then passing it in, but every one of my projects needs at least one thing
@@ -84,7 +128,8 @@ public abstract class Truck implements Schedule, Render
             }
             
             // lastly, lets init the order
-            currentOrder = router.getNextOrder(currentLocation);
+            currentOrder = router.getNextOrder(startingPoint);
+            state.setTarget(slot, currentOrder.getTargetWarehouse().location);
     }
     
     /**
@@ -92,31 +137,118 @@ public abstract class Truck implements Schedule, Render
      * loading queue and prepare to empty cargo.
      */
     public void action(){
-        if(paused == true){
-            return;
-        }      
-        
-        // What is our destiny?
+        if(move()){
+            joinDestinationQueue();
+        }
+    }
+    
+    /**
+     * The first half of action(): moves the truck along, stopping if it has
+     * arrived at a warehouse.  This only touches the truck itself, so it is
+     * safe to call on many trucks at once from different threads.
+     * 
+     * @return true if the truck has just arrived, and needs to join the
+     * queue of the warehouse it is at
+     */
+    public boolean move(){
+        // move towards target, adding to the cargo accumulator as we go: if we've
+        // arrived, the state stops us moving
+        if(state.step(slot)){
+            noteArrival(currentOrder.getTargetWarehouse());
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Adds the arrival at a warehouse to the log
+     */
+    private void noteArrival(Warehouse destination){
+        noteEvent(JOINED_QUEUE, destination.location.xPos, destination.location.yPos);
+        if(bus != null){
+            bus.publish(SimulationEvent.JOINED_QUEUE, id, destination.id, destination.location.xPos, destination.location.yPos);
+        }
+    }
+    
+    /**
+     * Notes something that happened, to be mentioned in our next status
+     */
+    private void noteEvent(byte kind, double x, double y){
+        state.addEvent(slot, kind, x, y);
+    }
+    
+    /**
+     * Gets the words that introduce an event in a status: the place it
+     * happened comes right after
+     */
+    public static String eventText(byte kind){
+        switch(kind){
+            case JOINED_QUEUE:
+                return "Joined entry queue for the warehouse at ";
+            case PICKED_UP:
+                return "Picked up cargo at ";
+            case DROPPED_OFF:
+                return "Dropped off cargo at ";
+            default:
+                throw new IllegalArgumentException("No such event: " + kind);
+        }
+    }
+    
+    /**
+     * Works out how many calls to move() it will take for this truck to arrive at
+     * its current destination, without actually doing any moving.  This is for
+     * engines that would rather skip straight to the arrival.
+     * <p>
+     * move() lands right on the destination once it is within one step of it,
+     * so this is just the distance in steps, rounded up.  The small fudge
+     * factor matches the tolerance that Point.equals() allows.
+     * 
+     * @return the number of ticks until arrival: at least 1
+     */
+    public int ticksToArrive(){
         Warehouse destination = currentOrder.getTargetWarehouse();
-        
-        // move towards target
-        currentLocation = currentLocation.calculateNext(destination.location, this.getMoveSpeed());
-        
-        // add to the cargo accumulator
-        ticksOfFullCargo += cargoCount;
-        
-        // if we've arrived
-        if(currentLocation.equals(destination.location)){
-            // stop moving
-            paused = true;
-            // join the warehouse's queue
-            destination.joinQueue(this);
-            // note it in the log
-            statusString.append("Joined entry queue for the warehouse at ");
-            statusString.append(destination.location.toString());
-            statusString.append(";  ");
+        double steps = Point.distance(state.getX(slot), state.getY(slot),
+                                      destination.location.xPos, destination.location.yPos) / getMoveSpeed();
+        return Math.max(1, (int) Math.ceil(steps - 1e-9));
+    }
+    
+    /**
+     * Moves the truck along as though move() had been called the given number of
+     * times.  This must not take the truck all the way to its destination: use
+     * arrive() for that.  The positions are worked out step by step, exactly as
+     * move() would have, so a truck that is advanced arrives at the same time as
+     * one that was moved.
+     * 
+     * @param travelTicks the number of ticks to travel for
+     */
+    public void advance(int travelTicks){
+        if(travelTicks <= 0){
+            return;
         }
-        
+        state.advance(slot, travelTicks);
+    }
+    
+    /**
+     * Skips straight to the end of the current trip: the truck finishes the given
+     * number of ticks of travel, lands on its destination and stops, just as the
+     * final move() would have.  Like move(), this doesn't join the warehouse's queue:
+     * call joinDestinationQueue() for that.
+     * 
+     * @param travelTicks the number of ticks of travel left in the trip, including
+     * the tick it arrives on
+     */
+    public void arrive(int travelTicks){
+        state.arrive(slot, travelTicks);
+        noteArrival(currentOrder.getTargetWarehouse());
+    }
+    
+    /**
+     * The second half of action(): joins the queue of the warehouse we have
+     * just arrived at.  The warehouse is shared with every other truck, so
+     * unlike move(), this must be done one truck at a time.
+     */
+    public void joinDestinationQueue(){
+        currentOrder.getTargetWarehouse().joinQueue(this);
     }
     
     /**
@@ -124,10 +256,14 @@ public abstract class Truck implements Schedule, Render
      * for use by Warehouses
      */
     protected void loadingComplete(){
-        if(paused == false){
+        if(!state.isPaused(slot)){
             throw new Error("A truck is trying to leave a warehouse it never entered");
         }
-        paused = false;
+        state.setPaused(slot, false);
+        // a log that skips ticks might not have said anything about our arrival yet: if
+        // so, it's too late now.  Our next status starts from here
+        state.clearEvents(slot);
+        Warehouse here = currentOrder.getTargetWarehouse();
         currentOrder.nextState();
         if(currentOrder.getStatus() == ShipmentState.MOVING){
             // place the current order in the first empty slot in the array
@@ -138,38 +274,49 @@ public abstract class Truck implements Schedule, Render
                 i++;
             }
             currentCargo[i] = currentOrder;
-            // add this to the string log
-            statusString.append("Picked up ");
+            // add this to the log
+            noteEvent(PICKED_UP, state.getX(slot), state.getY(slot));
+            if(bus != null){
+                bus.publish(SimulationEvent.PICKED_UP, id, here.id, state.getX(slot), state.getY(slot));
+            }
             // we now have another piece of cargo!
-            cargoCount++;
+            state.changeCargo(slot, 1);
         }
         else{
             // we need to pull the order out of the array, it's completed
             for(int i = 0; i < currentCargo.length; i++){
-                if(currentOrder == currentCargo[i]){
+                if(currentOrder.equals(currentCargo[i])){
                     currentCargo[i] = null;
                     // if we are dropping off two, don't fail!
                     
                 }
             }
-            statusString.append("Dropped off ");
+            noteEvent(DROPPED_OFF, state.getX(slot), state.getY(slot));
+            if(bus != null){
+                bus.publish(SimulationEvent.DROPPED_OFF, id, here.id, state.getX(slot), state.getY(slot));
+            }
             // we lost a piece of cargo :(
-            cargoCount --;
+            state.changeCargo(slot, -1);
         }
-        statusString.append("cargo at ");
-        statusString.append(currentLocation.toString());
-        statusString.append(";  ");
-        
         // route now to avoid a conditional in an inner loop
-        currentOrder = router.getNextOrder(currentLocation);
+        currentOrder = router.getNextOrder(state.getX(slot), state.getY(slot));
         
         // if it's null, then routing 'failed': there is no next order
         // that means we're done! we can go home!
         if(currentOrder == null){
-            paused = true;
-            complete = true;
+            state.setComplete(slot);
+            if(bus != null){
+                bus.publish(SimulationEvent.ROUTED, id, -1, 0, 0);
+            }
             return;
-        }    
+        }
+        Warehouse next = currentOrder.getTargetWarehouse();
+        state.setTarget(slot, next.location);
+        // the router's decision: it's the truck that tells everyone, so that
+        // routers don't each need to know about the bus
+        if(bus != null){
+            bus.publish(SimulationEvent.ROUTED, id, next.id, next.location.xPos, next.location.yPos);
+        }
     }
     
     /**
@@ -180,61 +327,222 @@ public abstract class Truck implements Schedule, Render
      * truck that has completed it's orders: the results are nonsensical in that case
      */
     public String status(){
-        // For the sake of performance, I use a StringBuilder
-        // this is an API class that allows us to avoid repeatedly allocating parts of a string
-        // it is semantically equivalent with a simple string +=, but this avoids memory allocations
-        // it'd be nice if the compiler could spot that as well, buuuuutt it can't.
-               
+        LogBuffer line = new LogBuffer(128);
+        appendStatus(line);
+        return line.toString();
+    }
+    
+    /**
+     * Writes our status straight into the log, the same as status() would say it.
+     * This used to go into a StringBuilder, then a String, then the Executer's own
+     * builder: three copies of every truck, every tick.  Now it's just the one, and
+     * the coordinates go in as digits (see Point.appendPoint()).
+     */
+    @Override
+    public void appendStatus(LogBuffer out){
         // if we're done, don't bother with a status
-        if(complete){
-            return "";
+        if(state.isComplete(slot)){
+            state.clearEvents(slot);
+            return;
+        }
+        
+        // First, whatever we've done since last time
+        for(int i = 0; i < state.getEventCount(slot); i++){
+            out.append(eventText(state.getEventKind(slot, i)));
+            Point.appendPoint(out, state.getEventX(slot, i), state.getEventY(slot, i));
+            out.append(";  ");
         }
+        state.clearEvents(slot);
         
-        // First, our location.
-        statusString.append("Location: ");
-        statusString.append(currentLocation.toString());
+        // Then, our location.
+        out.append("Location: ");
+        // straight from the fleet's arrays: no Point, and no Strings either
+        Point.appendPoint(out, state.getX(slot), state.getY(slot));
         
         // Now, our destination
-        statusString.append(" Destination: ");
+        out.append(" Destination: ");
         if(currentOrder == null){
-            statusString.append("None");
+            out.append("None");
         }
         else{
-            statusString.append(currentOrder.getTargetWarehouse().location.toString());
+            currentOrder.getTargetWarehouse().location.appendTo(out);
         }
         
         // and our cargo, displayed as filled/total
-        statusString.append(" Cargo: ");
+        out.append(" Cargo: ");
         
-        statusString.append(cargoCount);
-        statusString.append("/");
-        statusString.append(currentCargo.length);
+        out.append(state.getCargo(slot));
+        out.append('/');
+        out.append(currentCargo.length);
         
         // if we're paused, say so
-        if(paused){
-            statusString.append(" Paused, ");
+        if(state.isPaused(slot)){
+            out.append(" Paused, ");
             // we might be done!
-            if(complete){
-                statusString.append("all orders complete!");
+            if(state.isComplete(slot)){
+                out.append("all orders complete!");
             }
             else{
-                statusString.append("awaiting warehouse");
+                out.append("awaiting warehouse");
             }
             
         }
-        
-        // convert to a proper string
-        String status = statusString.toString();
-        // and clear out the old from our builder
-        statusString.setLength(0);
-        return status;
+    }
+    
+    /**
+     * The binary log version of status(): writes the same information, but as
+     * numbers, with coordinates in hundredths (see Point.toHundredths()).  The
+     * LogDecoder turns it back into exactly what status() would have said.
+     * Like status(), this clears out the events noted since last time.
+     * <p>
+     * The format is: a byte of flags (PAUSED_FLAG, COMPLETE_FLAG).  A complete
+     * truck stops there.  Otherwise, a byte with the number of events, then
+     * each event as its code and the coordinates it happened at, then our
+     * coordinates, the id of the warehouse we're heading to, and our cargo count.
+     */
+    public void encodeStatus(LogBuffer out){
+        if(state.isComplete(slot)){
+            state.clearEvents(slot);
+            out.putByte(COMPLETE_FLAG);
+            return;
+        }
+        out.putByte(state.isPaused(slot) ? PAUSED_FLAG : 0);
+        out.putByte(state.getEventCount(slot));
+        for(int i = 0; i < state.getEventCount(slot); i++){
+            out.putByte(state.getEventKind(slot, i));
+            putCoordinates(out, state.getEventX(slot, i), state.getEventY(slot, i));
+        }
+        state.clearEvents(slot);
+        putCoordinates(out, state.getX(slot), state.getY(slot));
+        out.putInt(currentOrder == null ? -1 : currentOrder.getTargetWarehouse().id);
+        out.putShort(state.getCargo(slot));
+    }
+    
+    private static void putCoordinates(LogBuffer out, double x, double y){
+        out.putInt(Math.toIntExact(Point.toHundredths(x)));
+        out.putInt(Math.toIntExact(Point.toHundredths(y)));
+    }
+    
+    /**
+     * The delta log version of status() (see DeltaLog): everything there is to
+     * know about where we are and where we're going, at full precision, so that
+     * a DeltaLogReader can carry on moving us exactly as move() would.  Like
+     * status(), this clears out the events noted since last time.
+     * <p>
+     * The format is: a byte of flags, a byte with the number of events, then each
+     * event as its code and the coordinates it happened at (as doubles), then our
+     * coordinates, our target's coordinates, our speed, the id of the warehouse
+     * we're heading to, and our cargo count.  Complete trucks never have events:
+     * status() doesn't mention them either.
+     */
+    public void encodeState(LogBuffer out){
+        if(state.isComplete(slot)){
+            state.clearEvents(slot);
+            out.putByte(COMPLETE_FLAG | PAUSED_FLAG);
+        }
+        else{
+            out.putByte(state.isPaused(slot) ? PAUSED_FLAG : 0);
+        }
+        out.putByte(state.getEventCount(slot));
+        for(int i = 0; i < state.getEventCount(slot); i++){
+            out.putByte(state.getEventKind(slot, i));
+            out.putDouble(state.getEventX(slot, i));
+            out.putDouble(state.getEventY(slot, i));
+        }
+        state.clearEvents(slot);
+        out.putDouble(state.getX(slot));
+        out.putDouble(state.getY(slot));
+        out.putDouble(state.getTargetX(slot));
+        out.putDouble(state.getTargetY(slot));
+        out.putDouble(state.getSpeed(slot));
+        out.putInt(currentOrder == null ? -1 : currentOrder.getTargetWarehouse().id);
+        out.putShort(state.getCargo(slot));
+    }
+    
+    /**
+     * Throws away the things that happened since our last status, for when
+     * nobody is going to ask for it
+     */
+    public void forgetEvents(){
+        state.clearEvents(slot);
+    }
+    
+    /**
+     * Whether anything has happened to us since our last status: picking up,
+     * dropping off, or joining a queue
+     */
+    public boolean hasEvents(){
+        return state.getEventCount(slot) > 0;
+    }
+    
+    /**
+     * Gets the number of pieces of cargo this truck can hold
+     */
+    public int getCapacity(){
+        return currentCargo.length;
+    }
+    
+    /**
+     * Sets where this truck publishes the things it does (and the places its
+     * router sends it), or null to not bother.  It needs its id first.
+     */
+    public void setEventBus(EventBus eventBus){
+        bus = eventBus;
+    }
+    
+    /**
+     * Gives this truck its position in the list of trucks of its run.  Engines
+     * that keep their own per-truck records use this to find them.
+     * 
+     * @param index the position of this truck in its run
+     * @throws IllegalStateException if the truck already has an id
+     */
+    public void assignId(int index){
+        if(id != -1){
+            throw new IllegalStateException("This truck already has an id");
+        }
+        id = index;
+    }
+    
+    /**
+     * Moves this truck's changing state (see FleetState) into a slot of a shared
+     * state, which every truck of the run keeps theirs in.  From then on, the
+     * truck reads and writes that slot: so moving the truck through the shared
+     * state moves the truck.
+     * 
+     * @param fleet the state to move into
+     * @param fleetSlot the slot of that state that is ours
+     */
+    public void attachTo(FleetState fleet, int fleetSlot){
+        state.copyTo(slot, fleet, fleetSlot);
+        state = fleet;
+        slot = fleetSlot;
+    }
+    
+    /**
+     * Gets this truck's position in the list of trucks of its run, or -1 if
+     * it hasn't been given one
+     */
+    public int getId(){
+        return id;
+    }
+    
+    /**
+     * Gets the warehouse this truck is currently heading to (or waiting at),
+     * or null if it has finished all of its orders.
+     */
+    public Warehouse getDestination(){
+        if(currentOrder == null){
+            return null;
+        }
+        return currentOrder.getTargetWarehouse();
     }
     
     /**
      * Whether or not we are finished.
      */
     public boolean isComplete(){
-        return complete;
+        return state.isComplete(slot);
     }
     
     /**
@@ -245,9 +553,12 @@ public abstract class Truck implements Schedule, Render
     
     /**
      * Gets the trucks current location.  FOR SCIENCE.
+     * <p>
+     * We don't keep a Point around any more, so this makes a new one every time:
+     * which is why nothing that runs every tick calls it
      */
     public Point getLocation(){
-        return currentLocation;
+        return new Point(state.getX(slot), state.getY(slot));
     }
     
     /**
@@ -259,35 +570,32 @@ public abstract class Truck implements Schedule, Render
      */
     public void draw(Graphics2D g){
         // Don't draw a truck that is currently waiting in a warehouse
-        if(paused){
+        if(state.isPaused(slot)){
             return;
         }
         // Lets calculate the various points from which we will draw our rectangles.
         // We are centered on the currentLocation: so we draw from a bit above it
-        double verticalCoordinate = currentLocation.yPos - Configuration.objectSize/2;
+        double verticalCoordinate = state.getY(slot) - Configuration.objectSize/2;
         
         // The horisontal center is, once again, equal to the position less the length of the object
         // But we need to account for the length varying, with different sized trucks
         double length = Configuration.objectSize * currentCargo.length;
-        double horisontalCoordinate = currentLocation.xPos - length / 2;
+        double horisontalCoordinate = state.getX(slot) - length / 2;
         
         // Now, we produce the rectangles that make up the truck, 
         // adding them to the graphics object
         for(int i = 0; i < currentCargo.length; i++){
-            // build the rectangle.  We use a high-precision Rectangle2D.Double, mostly because I don't
-            // want to write casts from our double-based points into their integer-based coradinates
-            Rectangle2D rect = new Rectangle2D.Double(horisontalCoordinate,verticalCoordinate,
-                Configuration.objectSize,Configuration.objectSize);
-            // now set the color the next object will be, based on whether or not this unit is full
+            // set the color the next object will be, based on whether or not this unit is full
             if(currentCargo[i] == null){
-                g.setColor(Configuration.emptyColor);
+                g.setColor(emptyColor);
             }
             else{
-                g.setColor(Configuration.filledColor);
+                g.setColor(filledColor);
             }
             
             // now draw!
-            g.fill(rect);
+            SimulationImage.fillRectangle(g, horisontalCoordinate, verticalCoordinate,
+                Configuration.objectSize, Configuration.objectSize);
             
             // increment coordinate for next loop
             horisontalCoordinate += Configuration.objectSize;
@@ -308,6 +616,6 @@ public abstract class Truck implements Schedule, Render
      * ammount of cargo in the hold).
      */
     public int cargoFilledTime(){
-        return ticksOfFullCargo;
+        return state.getCargoTicks(slot);
     }
 }
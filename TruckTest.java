@@ -81,6 +81,31 @@ public abstract class TruckTest
         }
     }
     
+    @Test
+    public void arrivalTimeMatchesMoving(){
+        for(Truck t : trucks){
+            int expected = t.ticksToArrive();
+            int moves = 1;
+            while(!t.move()){
+                moves++;
+            }
+            assertEquals(expected, moves);
+        }
+    }
+    
+    @Test
+    public void appendedStatusMatchesStatus(){
+        LogBuffer line = new LogBuffer(0);
+        for(Truck t : trucks){
+            t.action();
+            // nothing happens in between, so both should say the same thing
+            String status = t.status();
+            line.clear();
+            t.appendStatus(line);
+            assertEquals(status, line.toString());
+        }
+    }
+    
     @Test
     public void testLoadingCompleteErrors(){
         // we should get an error, since none of these have been loaded.
@@ -1,6 +1,7 @@
 import java.awt.Graphics2D;
 import java.awt.Graphics;
-import java.awt.geom.Rectangle2D;
+
+import java.util.function.Consumer;
 
 import javax.swing.JComponent;
 
@@ -14,10 +15,20 @@ public class Warehouse implements Schedule, Render
 {
     public final Point location;
     public final int docks;
-    private final DeQueue<Truck> enter = new DeQueue<Truck>();
+    /**
+     * This warehouse's position in the list of warehouses of its run, or -1 if
+     * it isn't part of one.  Engines that keep their own per-warehouse records
+     * use this to find them.
+     */
+    public final int id;
+    private final DeQueue<Truck> enter;
     // This queue holds a truck for a single round, to prevent one from
     // entering and leaving on the same tick
-    private final DeQueue<Truck> exits = new DeQueue<Truck>();
+    private final DeQueue<Truck> exits;
+    // told about every truck that leaves, if anyone wants to know
+    private Consumer<Truck> releaseListener = null;
+    // where we tell everyone which trucks got a dock: see EventBus
+    private EventBus bus = null;
     
     /**
      * Builds a warehouse
@@ -25,8 +36,64 @@ public class Warehouse implements Schedule, Render
      * @param docks the number of loading docks that this warehouse has
      */
     public Warehouse(Point p, int docks){
+        this(p, docks, -1);
+    }
+    
+    /**
+     * Builds a warehouse, which knows where it sits in the list of warehouses
+     * @param p the location to build the warehouse at
+     * @param docks the number of loading docks that this warehouse has
+     * @param id the index of this warehouse in its run
+     */
+    public Warehouse(Point p, int docks, int id){
+        this(p, docks, id, false);
+    }
+    
+    /**
+     * Builds a warehouse, picking what kind of queues it keeps its trucks in
+     * @param p the location to build the warehouse at
+     * @param docks the number of loading docks that this warehouse has
+     * @param id the index of this warehouse in its run
+     * @param arrayQueues true to use ArrayDeQueues, false for the linked kind
+     */
+    public Warehouse(Point p, int docks, int id, boolean arrayQueues){
         location = p;
         this.docks = docks;
+        this.id = id;
+        if(arrayQueues){
+            enter = new ArrayDeQueue<Truck>();
+            exits = new ArrayDeQueue<Truck>(docks);
+        }
+        else{
+            enter = new DeQueue<Truck>();
+            exits = new DeQueue<Truck>();
+        }
+    }
+    
+    /**
+     * Sets something to be told about every truck that finishes loading
+     * and leaves this warehouse.  It is told right after the truck's
+     * loadingComplete(), so the truck already knows where it is going next.
+     * 
+     * @param listener the thing to tell, or null to tell nobody
+     */
+    public void setReleaseListener(Consumer<Truck> listener){
+        releaseListener = listener;
+    }
+    
+    /**
+     * Sets where this warehouse publishes its events, or null to not bother
+     */
+    public void setEventBus(EventBus eventBus){
+        bus = eventBus;
+    }
+    
+    /**
+     * Whether this warehouse has any trucks in it, waiting to get in or out.
+     * A warehouse that isn't busy does nothing at all in its action().
+     */
+    public boolean isBusy(){
+        return enter.size() + exits.size() > 0;
     }
     
     /**
@@ -46,11 +113,18 @@ public class Warehouse implements Schedule, Render
         while(exits.size() != 0){
             Truck target = exits.popFront();
             target.loadingComplete();
+            if(releaseListener != null){
+                releaseListener.accept(target);
+            }
         }
         // pull a number of trucks equal to docks out of the entrance queue,
         // placing them into the exiting queue
         for(int i = 0; i < docks && enter.size() > 0; i++){
-            exits.add(enter.popFront());
+            Truck docked = enter.popFront();
+            exits.add(docked);
+            if(bus != null){
+                bus.publish(SimulationEvent.DOCKED, docked.getId(), id, location.xPos, location.yPos);
+            }
         }
     }
     
@@ -62,17 +136,57 @@ public class Warehouse implements Schedule, Render
         return enter.size() + " Trucks entering, " + exits.size() + " Trucks leaving";
     }
     
+    /**
+     * Writes the same thing as status() straight into the log
+     */
+    @Override
+    public void appendStatus(LogBuffer out){
+        out.append(enter.size());
+        out.append(" Trucks entering, ");
+        out.append(exits.size());
+        out.append(" Trucks leaving");
+    }
+    
+    /**
+     * Gets the number of trucks waiting to get into a loading dock
+     */
+    public int getEnteringCount(){
+        return enter.size();
+    }
+    
+    /**
+     * Gets the number of trucks that have loaded, and will leave next tick
+     */
+    public int getLeavingCount(){
+        return exits.size();
+    }
+    
+    /**
+     * The binary log version of status(): just the two queue lengths
+     */
+    public void encodeStatus(LogBuffer out){
+        out.putInt(enter.size());
+        out.putInt(exits.size());
+    }
+    
     public void draw(Graphics2D g){
+        draw(g, location, isBusy());
+    }
+    
+    /**
+     * Draws a warehouse at the given location, the same way any warehouse draws
+     * itself: for drawing ones that aren't really here, like a Replay's
+     */
+    public static void draw(Graphics2D g, Point location, boolean busy){
         double y = location.yPos - Configuration.objectSize/2;
         double x = location.xPos - Configuration.objectSize/2;
-        Rectangle2D rect = new Rectangle2D.Double(x,y,Configuration.objectSize*2,Configuration.objectSize*2);
-        if(enter.size() + exits.size() > 0){
-            g.setColor(Configuration.warehouseColorBusy);
+        if(busy){
+            g.setColor(warehouseColorBusy);
         }
         else{
-            g.setColor(Configuration.warehouseColorEmpty);
+            g.setColor(warehouseColorEmpty);
         }
-        g.fill(rect);
+        SimulationImage.fillRectangle(g, x, y, Configuration.objectSize*2, Configuration.objectSize*2);
 
     }
 
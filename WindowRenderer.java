@@ -0,0 +1,53 @@
+import javax.swing.JFrame;
+
+/**
+ * Draws a run into a window, repainting after every tick.  This used to
+ * live inside of the Executer, but that meant every run dragged Swing along
+ * with it, even when nobody was watching.
+ *
+ * @author Calum McConnell
+ * @version 0.0.1
+ */
+public class WindowRenderer implements RunObserver
+{
+    private final JFrame window;
+    
+    public WindowRenderer(JFrame win){
+        window = win;
+    }
+    
+    /**
+     * This handles preparing for the graphics rendering.
+     * Rather than having a list of Render objects, I instead made the
+     * Graphics and Warehouse objects extend JComponent.  I think that is
+     * the most elegant way to make them all be displayable on-screen.
+     * While I'm not sure that's what you intended us to do, it is the way
+     * that is most readily adapted to the technique presented in the book.
+     * NOTE THIS IN FINAL REPORT
+     */
+    public void prepare(Configuration config, DoublyLinkedList<Truck> trucks,
+                        DoublyLinkedList<Warehouse> warehouses){
+        // lets get our scale factors: this is based on my screen,
+        // a 1366x768 laptop monitor.  We want it to fit without going fullscreen:
+        // so there is a gap to the top and bottom.
+        double scaleFactorY = 650.0 / config.canvasHeight;
+        double scaleFactorX = 1300.0 / config.canvasWidth;
+        
+        SimulationImage comp = new SimulationImage(Math.min(scaleFactorX,scaleFactorY));
+        // add all the trucks and warehouses to the JFrame
+        trucks.forEach(comp::add);
+        warehouses.forEach(comp::add);
+        // clear out the previous execution
+        window.getContentPane().removeAll();
+        
+        window.add(comp);
+        window.setVisible(true);
+    }
+    
+    /**
+     * Update the window
+     */
+    public void tickComplete(){
+        window.repaint();
+    }
+}